@@ -0,0 +1,119 @@
+package com.wallet.hello_cash_wallet.benchmarks;
+
+import com.wallet.hello_cash_wallet.config.ConversationSessionStore;
+import com.wallet.hello_cash_wallet.enums.Channel;
+import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
+import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
+import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
+import com.wallet.hello_cash_wallet.payload.response.RegistrationResponse;
+import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
+import com.wallet.hello_cash_wallet.service.TransactionService;
+import com.wallet.hello_cash_wallet.service.UserEntityService;
+import com.wallet.hello_cash_wallet.service.impl.BankService;
+import com.wallet.hello_cash_wallet.service.impl.ConversationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Step parsing and state transitions of the conversation engine, with the services behind it stubbed out
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversationBenchmark {
+
+  private static final AtomicLong SESSIONS = new AtomicLong();
+  private static final TransactionsResponse SUCCESS = TransactionsResponse.builder()
+          .statusCode(200)
+          .message("Transfer successful")
+          .amount(new BigDecimal("1500"))
+          .balance(new BigDecimal("8500"))
+          .build();
+
+  private ConversationServiceImpl conversationService;
+  private String sessionId;
+  private String parkedSessionId;
+
+  @Setup
+  public void setUp() {
+    BankService bankService = new BankService(Stubs.payStack(Stubs.banks(200)));
+    bankService.load();
+    conversationService = new ConversationServiceImpl(
+            new ConversationSessionStore(new SimpleMeterRegistry(), 900_000, 1_000_000),
+            new UserEntityService() {
+              @Override
+              public RegistrationResponse createUser(RegistrationRequest request) {
+                return RegistrationResponse.builder().fullName(request.getFullName())
+                        .virtualAccountNumber("3000000012").balance(BigDecimal.ZERO).build();
+              }
+
+              @Override
+              public String getAccountNumberByPhoneNumber(String phoneNumber) {
+                return "3000000012";
+              }
+            },
+            new TransactionService() {
+              @Override
+              public TransactionsResponse performTransaction(TransactionRequest request) {
+                return SUCCESS;
+              }
+
+              @Override
+              public TransactionsResponse handleTransfer(TransactionRequest request) {
+                return SUCCESS;
+              }
+            },
+            accountNumber -> AccountInfo.builder().accountName("Ada Obi").build(),
+            Stubs.payStack(Stubs.banks(200)),
+            bankService);
+    sessionId = "bench-" + SESSIONS.incrementAndGet();
+
+    // A conversation parked on the amount step, for measuring rejected input
+    parkedSessionId = "bench-" + SESSIONS.incrementAndGet();
+    conversationService.handle(Channel.WEB_SOCKET, parkedSessionId, null, "2");
+    conversationService.handle(Channel.WEB_SOCKET, parkedSessionId, null, "A");
+    conversationService.handle(Channel.WEB_SOCKET, parkedSessionId, null, "3000000012");
+    conversationService.handle(Channel.WEB_SOCKET, parkedSessionId, null, "3000000020");
+  }
+
+  // The six exchanges of a HelloCash transfer over WebSocket
+  @Benchmark
+  public void webSocketTransferConversation(Blackhole blackhole) {
+    blackhole.consume(conversationService.handle(Channel.WEB_SOCKET, sessionId, null, "2"));
+    blackhole.consume(conversationService.handle(Channel.WEB_SOCKET, sessionId, null, "A"));
+    blackhole.consume(conversationService.handle(Channel.WEB_SOCKET, sessionId, null, "3000000012"));
+    blackhole.consume(conversationService.handle(Channel.WEB_SOCKET, sessionId, null, "3000000020"));
+    blackhole.consume(conversationService.handle(Channel.WEB_SOCKET, sessionId, null, "1500"));
+    blackhole.consume(conversationService.handle(Channel.WEB_SOCKET, sessionId, null, "1234"));
+  }
+
+  // SMS skips the source account step because the caller's phone identifies the wallet
+  @Benchmark
+  public void smsTransferConversation(Blackhole blackhole) {
+    blackhole.consume(conversationService.handle(Channel.SMS, sessionId, "08031234567", "2"));
+    blackhole.consume(conversationService.handle(Channel.SMS, sessionId, "08031234567", "A"));
+    blackhole.consume(conversationService.handle(Channel.SMS, sessionId, "08031234567", "3000000020"));
+    blackhole.consume(conversationService.handle(Channel.SMS, sessionId, "08031234567", "1500"));
+    blackhole.consume(conversationService.handle(Channel.SMS, sessionId, "08031234567", "1234"));
+  }
+
+  @Benchmark
+  public String rejectInvalidAmount() {
+    return conversationService.handle(Channel.WEB_SOCKET, parkedSessionId, null, "15x0");
+  }
+}
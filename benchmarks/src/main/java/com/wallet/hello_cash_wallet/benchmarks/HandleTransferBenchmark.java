@@ -0,0 +1,115 @@
+package com.wallet.hello_cash_wallet.benchmarks;
+
+import com.wallet.hello_cash_wallet.entities.Transaction;
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
+import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
+import com.wallet.hello_cash_wallet.repository.UserEntityRepository;
+import com.wallet.hello_cash_wallet.service.LedgerService;
+import com.wallet.hello_cash_wallet.service.LimitsService;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
+import com.wallet.hello_cash_wallet.service.impl.BankService;
+import com.wallet.hello_cash_wallet.service.impl.TransactionServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// handleTransfer with in-memory wallets, a no-op ledger and a stubbed PayStack. Measures the service's own work:
+// lookups, validation, balance arithmetic and response building. Row locks and SQL are not modelled.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandleTransferBenchmark {
+
+  @Param({"HELLOCASH", "OTHERS"})
+  public TransferType transferType;
+
+  private TransactionServiceImpl transactionService;
+  private TransactionRequest forward;
+  private TransactionRequest back;
+  private boolean flip;
+
+  @Setup
+  public void setUp() {
+    BigDecimal balance = new BigDecimal("1000000000000");
+    List<Wallet> wallets = List.of(
+            Stubs.wallet(1, "3000000012", balance),
+            Stubs.wallet(2, "3000000020", balance));
+    BankService bankService = new BankService(Stubs.payStack(Stubs.banks(200)));
+    bankService.load();
+    transactionService = new TransactionServiceImpl(
+            Stubs.unsupported(UserEntityRepository.class),
+            Stubs.walletRepository(wallets),
+            new NoOpLedger(),
+            Stubs.payStack(Stubs.banks(200)),
+            bankService,
+            Stubs.unsupported(SmsOutboxService.class),
+            Stubs.unsupported(LimitsService.class),
+            new SimpleMeterRegistry());
+    forward = request("3000000012", "3000000020");
+    back = request("3000000020", "3000000012");
+  }
+
+  // Alternates direction so HELLOCASH balances stay level across iterations
+  @Benchmark
+  public TransactionsResponse handleTransfer() {
+    flip = !flip;
+    return transactionService.handleTransfer(flip ? forward : back);
+  }
+
+  private TransactionRequest request(String source, String destination) {
+    return TransactionRequest.builder()
+            .virtualAccountNumber(source)
+            .destinationAccount(destination)
+            .amount(BigDecimal.ONE)
+            .transactionType(TransactionType.TRANSFER)
+            .transferType(transferType)
+            .bankCode("058")
+            .pin("1234")
+            .build();
+  }
+
+  private static final class NoOpLedger implements LedgerService {
+    @Override
+    public String postTransfer(Wallet source, Wallet destination, BigDecimal amount, TransactionType transactionType) {
+      return "transfer";
+    }
+
+    @Override
+    public String postInterbankDebit(Wallet source, String destinationAccount, String bankCode, String destinationAccountName,
+                                     BigDecimal amount, TransactionType transactionType) {
+      return "transfer";
+    }
+
+    @Override
+    public List<String> postDisbursement(Wallet source, List<Wallet> destinations, List<BigDecimal> amounts, String description) {
+      return List.of();
+    }
+
+    @Override
+    public void postReversal(Wallet wallet, String transferId, String counterpartyAccount, BigDecimal amount) {
+    }
+
+    @Override
+    public void post(List<Transaction> entries) {
+    }
+  }
+}
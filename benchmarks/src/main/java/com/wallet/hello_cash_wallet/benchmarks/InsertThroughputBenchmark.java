@@ -0,0 +1,136 @@
+package com.wallet.hello_cash_wallet.benchmarks;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Entity insert throughput through Hibernate against a real Postgres, before and after the switch from IDENTITY ids
+// to the pooled sequence (allocationSize 50) in BaseClass. Both variants run with the application's
+// hibernate.jdbc.batch_size=50 and order_inserts; IDENTITY needs the generated id back from every insert, so
+// Hibernate cannot batch it. The score is rows per second, committed 50 to a transaction.
+// Needs BENCH_JDBC_URL (and BENCH_JDBC_USER / BENCH_JDBC_PASSWORD) pointing at a scratch database; the benchmark
+// creates and drops its own tables there. Run it alone with: java -jar benchmarks.jar InsertThroughput
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertThroughputBenchmark {
+
+  private static final int ROWS_PER_TRANSACTION = 50;
+
+  @Param({"IDENTITY", "POOLED_SEQUENCE"})
+  public String ids;
+
+  private SessionFactory sessionFactory;
+  private long serial;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String url = System.getenv("BENCH_JDBC_URL");
+    if (url == null || url.isBlank()) {
+      throw new IllegalStateException("Set BENCH_JDBC_URL to a scratch Postgres database to run this benchmark");
+    }
+    sessionFactory = new Configuration()
+            .addAnnotatedClass("IDENTITY".equals(ids) ? IdentityRow.class : PooledRow.class)
+            .setProperty("hibernate.connection.url", url)
+            .setProperty("hibernate.connection.username", System.getenv().getOrDefault("BENCH_JDBC_USER", "postgres"))
+            .setProperty("hibernate.connection.password", System.getenv().getOrDefault("BENCH_JDBC_PASSWORD", ""))
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            .setProperty("hibernate.jdbc.batch_size", String.valueOf(ROWS_PER_TRANSACTION))
+            .setProperty("hibernate.order_inserts", "true")
+            .buildSessionFactory();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (sessionFactory != null) {
+      sessionFactory.close();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+  public void insert() {
+    try (Session session = sessionFactory.openSession()) {
+      Transaction transaction = session.beginTransaction();
+      for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+        String accountNumber = String.format("%010d", ++serial);
+        session.persist("IDENTITY".equals(ids) ? new IdentityRow(accountNumber) : new PooledRow(accountNumber));
+      }
+      transaction.commit();
+    }
+  }
+
+  // Both rows are shaped like the wallet table: a short string, a balance and the audit timestamps
+  @Entity
+  @Table(name = "bench_identity_rows")
+  public static class IdentityRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+    public String virtualAccountNumber;
+    public BigDecimal balance;
+    public LocalDateTime createdAt;
+    public LocalDateTime updatedAt;
+
+    public IdentityRow() {
+    }
+
+    IdentityRow(String virtualAccountNumber) {
+      this.virtualAccountNumber = virtualAccountNumber;
+      this.balance = BigDecimal.ZERO;
+      this.createdAt = LocalDateTime.now();
+      this.updatedAt = createdAt;
+    }
+  }
+
+  @Entity
+  @Table(name = "bench_pooled_rows")
+  public static class PooledRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_pooled_seq")
+    @SequenceGenerator(name = "bench_pooled_seq", sequenceName = "bench_pooled_seq", allocationSize = 50)
+    public Long id;
+    public String virtualAccountNumber;
+    public BigDecimal balance;
+    public LocalDateTime createdAt;
+    public LocalDateTime updatedAt;
+
+    public PooledRow() {
+    }
+
+    PooledRow(String virtualAccountNumber) {
+      this.virtualAccountNumber = virtualAccountNumber;
+      this.balance = BigDecimal.ZERO;
+      this.createdAt = LocalDateTime.now();
+      this.updatedAt = createdAt;
+    }
+  }
+}
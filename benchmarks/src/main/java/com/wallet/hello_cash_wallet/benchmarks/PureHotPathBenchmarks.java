@@ -0,0 +1,77 @@
+package com.wallet.hello_cash_wallet.benchmarks;
+
+import com.wallet.hello_cash_wallet.service.impl.BankService;
+import com.wallet.hello_cash_wallet.util.AccountNumberGenerator;
+import com.wallet.hello_cash_wallet.util.PhoneNumbers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PureHotPathBenchmarks {
+
+  @Param({"08031234567", "+234 803 123 4567", "8031234567"})
+  public String phoneNumber;
+
+  private BankService bankService;
+  private long serial;
+  private String accountNumber;
+
+  @Setup
+  public void setUp() {
+    bankService = new BankService(Stubs.payStack(Stubs.banks(200)));
+    bankService.load();
+    serial = 12_345_678L;
+    accountNumber = AccountNumberGenerator.fromSerial(serial);
+  }
+
+  @Benchmark
+  public String formatPhoneNumber() {
+    return PhoneNumbers.toE164(phoneNumber);
+  }
+
+  @Benchmark
+  public String accountNumberFromSerial() {
+    return AccountNumberGenerator.fromSerial(serial);
+  }
+
+  @Benchmark
+  public boolean accountNumberIsValid() {
+    return AccountNumberGenerator.isValid(accountNumber);
+  }
+
+  @Benchmark
+  public String bankCodeByName() {
+    return bankService.getBankCode("guaranty trust bank");
+  }
+
+  @Benchmark
+  public String bankCodeByShortName() {
+    return bankService.getBankCode("GTBank");
+  }
+
+  @Benchmark
+  public boolean bankCodeIsValid() {
+    return bankService.isValidBankCode("058");
+  }
+
+  @Benchmark
+  public String bankNameByCode() {
+    return bankService.getBankName("058");
+  }
+}
@@ -0,0 +1,118 @@
+package com.wallet.hello_cash_wallet.benchmarks;
+
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.payload.request.Bank;
+import com.wallet.hello_cash_wallet.payload.request.PayoutInstruction;
+import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
+import com.wallet.hello_cash_wallet.payload.response.PayoutResult;
+import com.wallet.hello_cash_wallet.repository.WalletRepository;
+import com.wallet.hello_cash_wallet.service.PayStackService;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory stand-ins for the database and PayStack, so service code can be measured without I/O
+public final class Stubs {
+
+  private Stubs() {
+  }
+
+  public static List<Bank> banks(int count) {
+    List<Bank> banks = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Bank bank = new Bank();
+      bank.setName(i == 0 ? "Guaranty Trust Bank" : "Test Bank " + i);
+      bank.setCode(i == 0 ? "058" : String.format("%03d", 100 + i));
+      banks.add(bank);
+    }
+    return banks;
+  }
+
+  public static PayStackService payStack(List<Bank> banks) {
+    return new PayStackService() {
+      @Override
+      public List<Bank> getBanks() {
+        return banks;
+      }
+
+      @Override
+      public AccountInfo validateAccount(String accountNumber, String bankCode) {
+        return AccountInfo.builder().accountName("Ada Obi").accountNumber(accountNumber).bankCode(bankCode).build();
+      }
+
+      @Override
+      public List<PayoutResult> payout(List<PayoutInstruction> instructions) {
+        return List.of();
+      }
+
+      @Override
+      public PayoutResult verify(String reference) {
+        return null;
+      }
+    };
+  }
+
+  public static Wallet wallet(long id, String accountNumber, BigDecimal balance) {
+    Wallet wallet = Wallet.builder()
+            .virtualAccountNumber(accountNumber)
+            .accountName("Holder " + id)
+            .balance(balance)
+            .build();
+    wallet.setId(id);
+    return wallet;
+  }
+
+  // Only the lookups the transfer path uses are implemented; anything else fails loudly
+  public static WalletRepository walletRepository(Collection<Wallet> wallets) {
+    Map<String, Wallet> byAccount = new ConcurrentHashMap<>();
+    Map<Long, Wallet> byId = new ConcurrentHashMap<>();
+    for (Wallet wallet : wallets) {
+      byAccount.put(wallet.getVirtualAccountNumber(), wallet);
+      byId.put(wallet.getId(), wallet);
+    }
+    return (WalletRepository) Proxy.newProxyInstance(WalletRepository.class.getClassLoader(),
+            new Class<?>[]{WalletRepository.class}, (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "findIdByVirtualAccountNumber": {
+                  Wallet wallet = byAccount.get((String) args[0]);
+                  return wallet == null ? null : wallet.getId();
+                }
+                case "existsByVirtualAccountNumber":
+                  return byAccount.containsKey((String) args[0]);
+                case "findByVirtualAccountNumber":
+                  return byAccount.get((String) args[0]);
+                case "findAllByIdForUpdate": {
+                  List<Wallet> locked = new ArrayList<>();
+                  for (Object id : (Collection<?>) args[0]) {
+                    Wallet wallet = byId.get((Long) id);
+                    if (wallet != null) {
+                      locked.add(wallet);
+                    }
+                  }
+                  locked.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+                  return locked;
+                }
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return "InMemoryWalletRepository";
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> T unsupported(Class<T> type) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+      throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+    });
+  }
+}
@@ -0,0 +1,50 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lives in the allocator's package to reach the constructor that takes a block source. The in-memory block
+// source wraps around before the serial range runs out, since a run allocates far more numbers than it holds.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountNumberAllocatorBenchmark {
+
+  private static final long WRAP = 99_000_000L;
+
+  private AccountNumberAllocator allocator;
+
+  @Setup
+  public void setUp() {
+    AtomicLong sequence = new AtomicLong();
+    allocator = new AccountNumberAllocator(
+            () -> sequence.getAndAdd(AccountNumberAllocator.BLOCK_SIZE) % WRAP + 1);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String allocateSingleThread() {
+    return allocator.nextAccountNumber();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String allocateEightThreads() {
+    return allocator.nextAccountNumber();
+  }
+}
@@ -0,0 +1,88 @@
+package com.wallet.hello_cash_wallet.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Runs WebSocket clients and SMS phones against a running application for a fixed duration and prints
+// throughput, per-step latency percentiles and error rates. Every client is a virtual thread, so the number
+// of simulated sessions is bounded by sockets rather than threads.
+public final class LoadTest {
+
+  private static final long PROGRESS_SECONDS = 10;
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length > 0 && (args[0].equals("help") || args[0].equals("-h") || args[0].equals("--help"))) {
+      System.out.print(LoadTestOptions.USAGE);
+      return;
+    }
+    LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.print(LoadTestOptions.USAGE);
+      System.exit(2);
+      return;
+    }
+
+    Stats stats = new Stats();
+    HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(options.replyTimeoutMillis))
+            .build();
+    int clients = options.webSocketClients + options.smsPhones;
+    long rampNanos = options.rampUp.toNanos();
+    long started = System.nanoTime();
+    long deadline = started + options.duration.toNanos();
+    System.out.printf("Running %d WebSocket clients and %d SMS phones against %s for %ds (ramp-up %ds)%n",
+            options.webSocketClients, options.smsPhones, options.baseUrl, options.duration.toSeconds(), options.rampUp.toSeconds());
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < clients; i++) {
+        // Spread the starts evenly over the ramp-up
+        long startAt = started + (clients <= 1 ? 0 : rampNanos * i / clients);
+        long delay = startAt - System.nanoTime();
+        if (delay > 0) {
+          TimeUnit.NANOSECONDS.sleep(delay);
+        }
+        if (System.nanoTime() >= deadline) {
+          break;
+        }
+        executor.execute(i < options.webSocketClients
+                ? new WebSocketUser(httpClient, options, stats, () -> System.nanoTime() < deadline, i)
+                : new SmsUser(httpClient, options, stats, () -> System.nanoTime() < deadline, i - options.webSocketClients));
+      }
+      long lastSteps = 0;
+      long lastReport = System.nanoTime();
+      while (System.nanoTime() < deadline) {
+        TimeUnit.NANOSECONDS.sleep(Math.min(TimeUnit.SECONDS.toNanos(PROGRESS_SECONDS), Math.max(deadline - System.nanoTime(), 0)));
+        long now = System.nanoTime();
+        long steps = stats.totalSteps();
+        System.out.printf("%4ds  %9d steps  %8.1f steps/s  %7d errors%n",
+                TimeUnit.NANOSECONDS.toSeconds(now - started), steps,
+                (steps - lastSteps) / ((now - lastReport) / 1e9), stats.totalErrors());
+        lastSteps = steps;
+        lastReport = now;
+      }
+      // Clients notice the deadline after their current step; a step waits at most one reply timeout
+      executor.shutdown();
+      if (!executor.awaitTermination(options.replyTimeoutMillis + 5000, TimeUnit.MILLISECONDS)) {
+        executor.shutdownNow();
+      }
+    }
+
+    Stats.Report report = stats.report((System.nanoTime() - started) / 1e9);
+    System.out.print(report.toText());
+    if (options.report != null) {
+      Files.writeString(options.report, report.toJson());
+      System.out.println("\nReport written to " + options.report);
+    }
+  }
+}
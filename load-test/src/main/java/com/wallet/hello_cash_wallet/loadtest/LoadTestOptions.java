@@ -0,0 +1,126 @@
+package com.wallet.hello_cash_wallet.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Options are key=value arguments; anything not given falls back to the defaults in USAGE
+final class LoadTestOptions {
+
+  static final String USAGE = """
+          Usage: java -jar load-test.jar [key=value ...]
+            base-url=http://localhost:8080  application under test
+            ws-clients=50                   concurrent /ws clients, each running conversations back to back
+            sms-phones=0                    concurrent phones POSTing to /ws/receive
+            scenarios=transfer,airtime,registration
+                                            conversations to run, in rotation per client
+            accounts=                       CSV of virtualAccountNumber,pin,phoneNumber for funded wallets;
+                                            required by transfer and airtime, and by every SMS scenario
+            hot-wallets=0                   when above 0, only the first N accounts are used, so clients contend
+                                            for the same wallet rows; 0 spreads clients over every account
+            amount=10                       amount per transfer or purchase
+            duration=60                     seconds of measurement after ramp-up starts
+            ramp-up=10                      seconds over which clients are started
+            think-ms=0                      pause between steps; use a few seconds for soak runs
+            reply-timeout-ms=10000          how long a WebSocket step waits for its reply
+            report=                         also write the report as JSON to this file
+          Soak: ws-clients=10000 think-ms=5000 duration=1800 holds 10k live sessions for half an hour.
+          Contention: scenarios=hot_transfer hot-wallets=2 ws-clients=200 sends JSON transfers between two wallets
+            from 200 clients; ws.hot_transfer.command shows transfers/s and p99 under row-lock contention.
+            Raise limits.transfer.per-minute and daily-max on the server first, or the limits refuse most of them.
+          """;
+
+  final URI baseUrl;
+  final int webSocketClients;
+  final int smsPhones;
+  final Set<Scenario> scenarios;
+  final List<Account> accounts;
+  final int hotWallets;
+  final String amount;
+  final Duration duration;
+  final Duration rampUp;
+  final long thinkMillis;
+  final long replyTimeoutMillis;
+  final Path report;
+
+  private LoadTestOptions(Map<String, String> values) throws IOException {
+    baseUrl = URI.create(stripSlash(values.getOrDefault("base-url", "http://localhost:8080")));
+    webSocketClients = Integer.parseInt(values.getOrDefault("ws-clients", "50"));
+    smsPhones = Integer.parseInt(values.getOrDefault("sms-phones", "0"));
+    scenarios = EnumSet.noneOf(Scenario.class);
+    for (String name : values.getOrDefault("scenarios", "transfer,airtime,registration").split(",")) {
+      scenarios.add(Scenario.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+    }
+    String accountsFile = values.get("accounts");
+    accounts = accountsFile == null ? List.of() : readAccounts(Path.of(accountsFile));
+    hotWallets = Integer.parseInt(values.getOrDefault("hot-wallets", "0"));
+    amount = values.getOrDefault("amount", "10");
+    duration = Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60")));
+    rampUp = Duration.ofSeconds(Long.parseLong(values.getOrDefault("ramp-up", "10")));
+    thinkMillis = Long.parseLong(values.getOrDefault("think-ms", "0"));
+    replyTimeoutMillis = Long.parseLong(values.getOrDefault("reply-timeout-ms", "10000"));
+    String reportFile = values.get("report");
+    report = reportFile == null ? null : Path.of(reportFile);
+
+    boolean needsAccounts = smsPhones > 0 || scenarios.stream().anyMatch(Scenario::needsAccounts);
+    if (needsAccounts && accounts.size() < 2) {
+      throw new IllegalArgumentException("transfer, airtime and SMS runs need at least two funded accounts in accounts=");
+    }
+    if (hotWallets == 1 || hotWallets > accounts.size()) {
+      throw new IllegalArgumentException("hot-wallets must be 0 or between 2 and the number of accounts");
+    }
+    if (smsPhones > 0 && scenarios.stream().anyMatch(Scenario::webSocketOnly)) {
+      throw new IllegalArgumentException("hot_transfer sends JSON commands, which only /ws accepts; set sms-phones=0");
+    }
+  }
+
+  // The index wraps over the hot wallets when hot-wallets is set, otherwise over every account
+  Account account(int index) {
+    int pool = hotWallets > 0 ? hotWallets : accounts.size();
+    return accounts.get(Math.floorMod(index, pool));
+  }
+
+  static LoadTestOptions parse(String[] args) throws IOException {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals <= 0) {
+        throw new IllegalArgumentException("Expected key=value but got: " + arg);
+      }
+      values.put(arg.substring(0, equals), arg.substring(equals + 1));
+    }
+    return new LoadTestOptions(values);
+  }
+
+  private static List<Account> readAccounts(Path file) throws IOException {
+    List<Account> accounts = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#") || line.startsWith("virtualAccountNumber")) {
+        continue;
+      }
+      String[] fields = line.split(",");
+      if (fields.length < 3) {
+        throw new IllegalArgumentException("Expected virtualAccountNumber,pin,phoneNumber but got: " + line);
+      }
+      accounts.add(new Account(fields[0].trim(), fields[1].trim(), fields[2].trim()));
+    }
+    return accounts;
+  }
+
+  private static String stripSlash(String url) {
+    return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+  }
+
+  record Account(String virtualAccountNumber, String pin, String phoneNumber) {
+  }
+}
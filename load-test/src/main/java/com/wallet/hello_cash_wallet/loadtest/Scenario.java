@@ -0,0 +1,101 @@
+package com.wallet.hello_cash_wallet.loadtest;
+
+import com.wallet.hello_cash_wallet.loadtest.LoadTestOptions.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The menu conversations a real caller walks through. Each step carries a fragment of the reply the server
+// should send back, so a WebSocket client can tell a served step from an error or re-prompt. SMS replies go
+// out through Twilio rather than back on the webhook, so SMS steps are only checked for acceptance.
+enum Scenario {
+
+  TRANSFER {
+    @Override
+    List<Step> steps(boolean sms, Account account, Account counterparty, String amount) {
+      List<Step> steps = new ArrayList<>(6);
+      steps.add(new Step("transfer.menu", "2", "transfer to"));
+      // SMS callers are identified by phone number, so the flow does not ask for a source account
+      steps.add(new Step("transfer.type", "A", sms ? "destination account" : "source account"));
+      if (!sms) {
+        steps.add(new Step("transfer.source", account.virtualAccountNumber(), "destination account"));
+      }
+      steps.add(new Step("transfer.destination", counterparty.virtualAccountNumber(), "Destination Account Name"));
+      steps.add(new Step("transfer.amount", amount, "PIN"));
+      steps.add(new Step("transfer.pin", account.pin(), "Amount:"));
+      return steps;
+    }
+  },
+
+  AIRTIME {
+    @Override
+    List<Step> steps(boolean sms, Account account, Account counterparty, String amount) {
+      List<Step> steps = new ArrayList<>(5);
+      steps.add(new Step("airtime.menu", "3", "phone number to buy airtime"));
+      steps.add(new Step("airtime.phone", counterparty.phoneNumber(), sms ? "amount of airtime" : "source account"));
+      if (!sms) {
+        steps.add(new Step("airtime.source", account.virtualAccountNumber(), "amount of airtime"));
+      }
+      steps.add(new Step("airtime.amount", amount, "PIN"));
+      steps.add(new Step("airtime.pin", account.pin(), "Amount:"));
+      return steps;
+    }
+  },
+
+  // One JSON TRANSFER command per conversation, so the step's latency is the server's transfer alone. With
+  // hot-wallets=2 every client moves money back and forth between the same two wallets and queues on their row locks.
+  HOT_TRANSFER {
+    @Override
+    List<Step> steps(boolean sms, Account account, Account counterparty, String amount) {
+      String command = "{\"v\":1,\"id\":\"hot\",\"type\":\"TRANSFER\",\"transaction\":{"
+              + "\"virtualAccountNumber\":\"" + account.virtualAccountNumber() + "\","
+              + "\"destinationAccount\":\"" + counterparty.virtualAccountNumber() + "\","
+              + "\"transferType\":\"HELLOCASH\",\"amount\":" + amount + ",\"pin\":\"" + account.pin() + "\"}}";
+      return List.of(new Step("hot_transfer.command", command, "Transfer successful"));
+    }
+
+    @Override
+    boolean webSocketOnly() {
+      return true;
+    }
+  },
+
+  // Registers a new wallet with a random BVN and phone number; collisions are possible but rare
+  REGISTRATION {
+    @Override
+    List<Step> steps(boolean sms, Account account, Account counterparty, String amount) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      return List.of(
+              new Step("registration.menu", "1", "full name"),
+              new Step("registration.name", "Load Test User", "date of birth"),
+              new Step("registration.date_of_birth", "1990-01-01", "BVN"),
+              new Step("registration.bvn", "9" + digits(random, 10), "phone number"),
+              new Step("registration.phone", "080" + digits(random, 8), "PIN"),
+              new Step("registration.pin", "1234", "registered successfully"));
+    }
+  };
+
+  // account and counterparty are null for scenarios that do not need funded wallets
+  abstract List<Step> steps(boolean sms, Account account, Account counterparty, String amount);
+
+  boolean needsAccounts() {
+    return this != REGISTRATION;
+  }
+
+  // JSON commands only exist on /ws
+  boolean webSocketOnly() {
+    return false;
+  }
+
+  private static String digits(ThreadLocalRandom random, int count) {
+    StringBuilder digits = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      digits.append((char) ('0' + random.nextInt(10)));
+    }
+    return digits.toString();
+  }
+
+  record Step(String name, String input, String expectedReply) {
+  }
+}
@@ -0,0 +1,94 @@
+package com.wallet.hello_cash_wallet.loadtest;
+
+import com.wallet.hello_cash_wallet.loadtest.LoadTestOptions.Account;
+import com.wallet.hello_cash_wallet.loadtest.Scenario.Step;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+// One phone POSTing Twilio-style webhooks to /ws/receive. The webhook only acknowledges the message and the
+// reply leaves through Twilio, so a step's latency is the acknowledgement time and an error is any status
+// other than 200. A 503 means the intake queue for the phone's partition was full.
+final class SmsUser implements Runnable {
+
+  static final String CHANNEL = "sms";
+  private static final String SERVICE_NUMBER = "+15005550006";
+
+  private final HttpClient httpClient;
+  private final URI uri;
+  private final LoadTestOptions options;
+  private final Stats stats;
+  private final BooleanSupplier running;
+  private final int index;
+
+  SmsUser(HttpClient httpClient, LoadTestOptions options, Stats stats, BooleanSupplier running, int index) {
+    this.httpClient = httpClient;
+    this.uri = URI.create(options.baseUrl + "/ws/receive");
+    this.options = options;
+    this.stats = stats;
+    this.running = running;
+    this.index = index;
+  }
+
+  @Override
+  public void run() {
+    List<Scenario> scenarios = List.copyOf(options.scenarios);
+    Account phone = options.account(index);
+    Account counterparty = options.account(index + 1);
+    int iteration = 0;
+    try {
+      while (running.getAsBoolean()) {
+        Scenario scenario = scenarios.get((index + iteration++) % scenarios.size());
+        stats.conversation(scenario, CHANNEL, converse(phone, scenario.steps(true, phone, counterparty, options.amount)));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean converse(Account phone, List<Step> steps) throws InterruptedException {
+    for (Step step : steps) {
+      if (!running.getAsBoolean()) {
+        return false;
+      }
+      long start = System.nanoTime();
+      String error;
+      try {
+        HttpResponse<Void> response = httpClient.send(request(phone, step.input()), HttpResponse.BodyHandlers.discarding());
+        error = response.statusCode() == 200 ? null : "HTTP " + response.statusCode();
+      } catch (IOException e) {
+        error = e.getClass().getSimpleName();
+      }
+      stats.record(CHANNEL + "." + step.name(), System.nanoTime() - start, error);
+      if (error != null) {
+        return false;
+      }
+      if (options.thinkMillis > 0) {
+        Thread.sleep(options.thinkMillis);
+      }
+    }
+    return true;
+  }
+
+  // As Twilio sends it: From is the simulated phone, To is the wallet's own number
+  private HttpRequest request(Account phone, String body) {
+    String form = "From=" + encode(phone.phoneNumber()) + "&To=" + encode(SERVICE_NUMBER) + "&Body=" + encode(body);
+    return HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofMillis(options.replyTimeoutMillis))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,164 @@
+package com.wallet.hello_cash_wallet.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency samples per step and outcome counts per conversation. Samples are kept raw and sorted once at the end;
+// a run of a few million steps costs a few tens of megabytes, which is cheaper to reason about than a histogram.
+final class Stats {
+
+  private final Map<String, StepStats> steps = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> conversations = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+  private final LongAdder totalSteps = new LongAdder();
+  private final LongAdder totalErrors = new LongAdder();
+
+  void record(String step, long nanos, String error) {
+    steps.computeIfAbsent(step, name -> new StepStats()).add(nanos, error != null);
+    totalSteps.increment();
+    if (error != null) {
+      totalErrors.increment();
+      errors.computeIfAbsent(step + ": " + error, reason -> new LongAdder()).increment();
+    }
+  }
+
+  void conversation(Scenario scenario, String channel, boolean completed) {
+    String key = channel + " " + scenario.name().toLowerCase() + (completed ? " completed" : " failed");
+    conversations.computeIfAbsent(key, name -> new LongAdder()).increment();
+  }
+
+  long totalSteps() {
+    return totalSteps.sum();
+  }
+
+  long totalErrors() {
+    return totalErrors.sum();
+  }
+
+  Report report(double elapsedSeconds) {
+    Map<String, StepReport> stepReports = new TreeMap<>();
+    steps.forEach((name, stats) -> stepReports.put(name, stats.report(elapsedSeconds)));
+    Map<String, Long> conversationCounts = new TreeMap<>();
+    conversations.forEach((name, count) -> conversationCounts.put(name, count.sum()));
+    Map<String, Long> errorCounts = new TreeMap<>();
+    errors.forEach((name, count) -> errorCounts.put(name, count.sum()));
+    return new Report(elapsedSeconds, totalSteps(), totalErrors(), stepReports, conversationCounts, errorCounts);
+  }
+
+  private static final class StepStats {
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+
+    synchronized void add(long nanos, boolean error) {
+      if (count == samples.length) {
+        samples = Arrays.copyOf(samples, count * 2);
+      }
+      samples[count++] = nanos;
+      if (error) {
+        errors++;
+      }
+    }
+
+    synchronized StepReport report(double elapsedSeconds) {
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      return new StepReport(count, errors, count / elapsedSeconds,
+              millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+              count == 0 ? 0 : sorted[count - 1] / 1_000_000.0);
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(quantile * sorted.length) - 1;
+      return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+  }
+
+  record StepReport(long count, long errors, double perSecond,
+                    double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+    double errorRate() {
+      return count == 0 ? 0 : (double) errors / count;
+    }
+  }
+
+  record Report(double elapsedSeconds, long steps, long errors, Map<String, StepReport> stepReports,
+                Map<String, Long> conversations, Map<String, Long> errorCounts) {
+
+    String toText() {
+      StringBuilder text = new StringBuilder();
+      text.append(String.format("%nElapsed %.1fs, %d steps (%.1f/s), %d errors (%.2f%%)%n%n",
+              elapsedSeconds, steps, steps / elapsedSeconds, errors, steps == 0 ? 0 : 100.0 * errors / steps));
+      text.append(String.format("%-30s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+              "step", "count", "per sec", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+      stepReports.forEach((name, step) -> text.append(String.format("%-30s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+              name, step.count(), step.perSecond(), 100 * step.errorRate(),
+              step.p50Ms(), step.p90Ms(), step.p99Ms(), step.p999Ms(), step.maxMs())));
+      text.append(String.format("%nConversations%n"));
+      conversations.forEach((name, count) -> text.append(String.format("  %-40s %9d (%.1f/s)%n",
+              name, count, count / elapsedSeconds)));
+      if (!errorCounts.isEmpty()) {
+        text.append(String.format("%nErrors%n"));
+        errorCounts.forEach((name, count) -> text.append(String.format("  %-60s %9d%n", name, count)));
+      }
+      return text.toString();
+    }
+
+    String toJson() {
+      StringBuilder json = new StringBuilder();
+      json.append("{\"elapsedSeconds\":").append(elapsedSeconds)
+              .append(",\"steps\":").append(steps)
+              .append(",\"errors\":").append(errors)
+              .append(",\"stepStats\":{");
+      String separator = "";
+      for (Map.Entry<String, StepReport> entry : stepReports.entrySet()) {
+        StepReport step = entry.getValue();
+        json.append(separator).append(quote(entry.getKey())).append(":{")
+                .append("\"count\":").append(step.count())
+                .append(",\"errors\":").append(step.errors())
+                .append(",\"perSecond\":").append(step.perSecond())
+                .append(",\"p50Ms\":").append(step.p50Ms())
+                .append(",\"p90Ms\":").append(step.p90Ms())
+                .append(",\"p99Ms\":").append(step.p99Ms())
+                .append(",\"p999Ms\":").append(step.p999Ms())
+                .append(",\"maxMs\":").append(step.maxMs())
+                .append('}');
+        separator = ",";
+      }
+      json.append("},\"conversations\":").append(counts(conversations))
+              .append(",\"errorCounts\":").append(counts(errorCounts))
+              .append("}\n");
+      return json.toString();
+    }
+
+    private static String counts(Map<String, Long> counts) {
+      StringBuilder json = new StringBuilder("{");
+      String separator = "";
+      for (Map.Entry<String, Long> entry : counts.entrySet()) {
+        json.append(separator).append(quote(entry.getKey())).append(':').append(entry.getValue());
+        separator = ",";
+      }
+      return json.append('}').toString();
+    }
+
+    private static String quote(String value) {
+      StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"' || c == '\\') {
+          quoted.append('\\').append(c);
+        } else if (c < 0x20) {
+          quoted.append(String.format("\\u%04x", (int) c));
+        } else {
+          quoted.append(c);
+        }
+      }
+      return quoted.append('"').toString();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.wallet.hello_cash_wallet.loadtest;
+
+import com.wallet.hello_cash_wallet.loadtest.LoadTestOptions.Account;
+import com.wallet.hello_cash_wallet.loadtest.Scenario.Step;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+// One /ws client running conversations back to back over a single connection. The server answers every
+// frame with exactly one frame, so a step's latency is the time from sending the input to receiving the
+// next frame. A step that times out or gets an unexpected reply abandons the conversation; a timeout or a
+// dropped connection also reconnects, since the session state on the server is then unknown.
+final class WebSocketUser implements Runnable {
+
+  static final String CHANNEL = "ws";
+  private static final String CLOSED = "\u0000closed";
+
+  private final HttpClient httpClient;
+  private final URI uri;
+  private final LoadTestOptions options;
+  private final Stats stats;
+  private final BooleanSupplier running;
+  private final int index;
+  private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+  private WebSocket webSocket;
+
+  WebSocketUser(HttpClient httpClient, LoadTestOptions options, Stats stats, BooleanSupplier running, int index) {
+    this.httpClient = httpClient;
+    this.uri = URI.create(options.baseUrl.toString().replaceFirst("^http", "ws") + "/ws");
+    this.options = options;
+    this.stats = stats;
+    this.running = running;
+    this.index = index;
+  }
+
+  @Override
+  public void run() {
+    List<Scenario> scenarios = List.copyOf(options.scenarios);
+    int iteration = 0;
+    try {
+      while (running.getAsBoolean()) {
+        if (webSocket == null && !connect()) {
+          pause(1000);
+          continue;
+        }
+        Scenario scenario = scenarios.get((index + iteration++) % scenarios.size());
+        Account account = null;
+        Account counterparty = null;
+        if (scenario.needsAccounts()) {
+          account = options.account(index + iteration);
+          counterparty = options.account(index + iteration + 1);
+        }
+        stats.conversation(scenario, CHANNEL, converse(scenario.steps(false, account, counterparty, options.amount)));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      disconnect();
+    }
+  }
+
+  private boolean converse(List<Step> steps) throws InterruptedException {
+    for (Step step : steps) {
+      if (!running.getAsBoolean()) {
+        return false;
+      }
+      long start = System.nanoTime();
+      String reply;
+      try {
+        webSocket.sendText(step.input(), true).join();
+        reply = replies.poll(options.replyTimeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        reply = CLOSED;
+      }
+      long nanos = System.nanoTime() - start;
+      if (reply == null || reply == CLOSED) {
+        stats.record(CHANNEL + "." + step.name(), nanos, reply == null ? "timeout" : "connection closed");
+        disconnect();
+        return false;
+      }
+      if (!reply.contains(step.expectedReply())) {
+        stats.record(CHANNEL + "." + step.name(), nanos, "unexpected reply: " + firstLine(reply));
+        return false;
+      }
+      stats.record(CHANNEL + "." + step.name(), nanos, null);
+      pause(options.thinkMillis);
+    }
+    return true;
+  }
+
+  // Connecting includes waiting for the menu the server sends on open
+  private boolean connect() throws InterruptedException {
+    replies.clear();
+    long start = System.nanoTime();
+    try {
+      webSocket = httpClient.newWebSocketBuilder()
+              .connectTimeout(Duration.ofMillis(options.replyTimeoutMillis))
+              .buildAsync(uri, new Listener())
+              .join();
+    } catch (RuntimeException e) {
+      stats.record("ws.connect", System.nanoTime() - start, "connect failed");
+      webSocket = null;
+      return false;
+    }
+    String menu = replies.poll(options.replyTimeoutMillis, TimeUnit.MILLISECONDS);
+    long nanos = System.nanoTime() - start;
+    if (menu == null || menu == CLOSED) {
+      stats.record("ws.connect", nanos, menu == null ? "no menu" : "connection closed");
+      disconnect();
+      return false;
+    }
+    stats.record("ws.connect", nanos, null);
+    return true;
+  }
+
+  private void disconnect() {
+    if (webSocket != null) {
+      webSocket.abort();
+      webSocket = null;
+    }
+  }
+
+  private static void pause(long millis) throws InterruptedException {
+    if (millis > 0) {
+      Thread.sleep(millis);
+    }
+  }
+
+  private static String firstLine(String reply) {
+    int newline = reply.indexOf('\n');
+    String line = newline < 0 ? reply : reply.substring(0, newline);
+    return line.length() > 60 ? line.substring(0, 60) : line;
+  }
+
+  private final class Listener implements WebSocket.Listener {
+    private final StringBuilder frame = new StringBuilder();
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+      frame.append(data);
+      if (last) {
+        replies.add(frame.toString());
+        frame.setLength(0);
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+      replies.add(CLOSED);
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+      replies.add(CLOSED);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.wallet.hello_cash_wallet.loadtest.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Stand-ins for PayStack and Twilio on one port, for running the wallet offline with the "stub" profile.
+// Every endpoint has its own Faults, set from key=value arguments or a properties file at startup and changed
+// at runtime with POST /__admin/faults, e.g. endpoint=paystack.resolve&latency=lognormal:40:400&error-rate=0.05.
+// GET /__admin/faults shows the settings and request counts. Requests are served on virtual threads, so injected
+// latency holds no platform threads. Embed it with start(port, settings) and close().
+public final class FakeProviders implements AutoCloseable {
+
+  static final String USAGE = """
+          Usage: java -cp load-test.jar com.wallet.hello_cash_wallet.loadtest.stub.FakeProviders [key=value ...]
+            port=9090                       port for both providers
+            config=                         properties file with any of the settings below
+            paystack.banks=250              length of the bank list
+            <endpoint>.latency=fixed:0      fixed:MS, uniform:MIN:MAX or lognormal:MEDIAN:P99
+            <endpoint>.error-rate=0         fraction answered with 500
+            <endpoint>.throttle-rate=0      fraction answered with 429
+            <endpoint>.rate-limit=0         requests per second before 429, 0 for unlimited
+            <endpoint>.hang-rate=0          fraction held for <endpoint>.hang-ms (30000) then 504
+          Endpoints: paystack.banks, paystack.resolve, paystack.recipients, paystack.transfers, twilio.messages
+          """;
+
+  private static final String[] ENDPOINTS = {
+          "paystack.banks", "paystack.resolve", "paystack.recipients", "paystack.transfers", "twilio.messages"};
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, Faults> faults = new LinkedHashMap<>();
+  private final TwilioStub twilio;
+
+  private FakeProviders(int port, Map<String, String> settings) throws IOException {
+    for (String endpoint : ENDPOINTS) {
+      faults.put(endpoint, new Faults(endpoint));
+    }
+    int bankCount = 250;
+    for (Map.Entry<String, String> setting : settings.entrySet()) {
+      if (setting.getKey().equals("paystack.banks")) {
+        bankCount = Integer.parseInt(setting.getValue());
+      } else {
+        configure(setting.getKey(), setting.getValue());
+      }
+    }
+    PayStackStub payStack = new PayStackStub(faults, bankCount);
+    twilio = new TwilioStub(faults.get("twilio.messages"));
+
+    server = HttpServer.create(new InetSocketAddress(port), 1024);
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext("/bank/resolve", exchange -> handle(exchange, payStack::resolve));
+    server.createContext("/bank", exchange -> handle(exchange, payStack::banks));
+    server.createContext("/transferrecipient/bulk", exchange -> handle(exchange, payStack::createRecipients));
+    server.createContext("/transfer/bulk", exchange -> handle(exchange, payStack::transfers));
+    server.createContext("/transfer/verify/", exchange -> handle(exchange, payStack::verify));
+    server.createContext(TwilioStub.PATH_PREFIX, exchange -> handle(exchange, twilio::messages));
+    server.createContext("/__admin/faults", exchange -> handle(exchange, this::admin));
+    server.start();
+  }
+
+  public static FakeProviders start(int port, Map<String, String> settings) throws IOException {
+    return new FakeProviders(port, settings);
+  }
+
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  public void configure(String key, String value) {
+    int dot = key.lastIndexOf('.');
+    Faults endpoint = dot < 0 ? null : faults.get(key.substring(0, dot));
+    if (endpoint == null) {
+      throw new IllegalArgumentException("Unknown setting " + key);
+    }
+    endpoint.configure(key.substring(dot + 1), value);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void admin(HttpExchange exchange) throws IOException {
+    if ("POST".equals(exchange.getRequestMethod())) {
+      Map<String, String> form = Http.form(Http.body(exchange));
+      String endpoint = form.remove("endpoint");
+      try {
+        for (Map.Entry<String, String> setting : form.entrySet()) {
+          configure(endpoint + "." + setting.getKey(), setting.getValue());
+        }
+      } catch (IllegalArgumentException e) {
+        Http.json(exchange, 400, "{\"message\":" + Http.quote(String.valueOf(e.getMessage())) + "}");
+        return;
+      }
+    }
+    StringBuilder json = new StringBuilder("{");
+    for (Faults endpoint : faults.values()) {
+      json.append(json.length() == 1 ? "" : ",").append(Http.quote(endpoint.endpoint())).append(":{");
+      String separator = "";
+      for (Map.Entry<String, Object> setting : new TreeMap<>(endpoint.describe()).entrySet()) {
+        Object value = setting.getValue();
+        json.append(separator).append(Http.quote(setting.getKey())).append(':')
+                .append(value instanceof String text ? Http.quote(text) : value);
+        separator = ",";
+      }
+      json.append('}');
+    }
+    json.append(",\"twilio.sent\":").append(twilio.sent()).append('}');
+    Http.json(exchange, 200, json.toString());
+  }
+
+  private static void handle(HttpExchange exchange, Handler handler) {
+    try {
+      handler.handle(exchange);
+    } catch (IOException | RuntimeException e) {
+      // The client went away or sent something the stub cannot read; nothing useful to answer
+    } finally {
+      exchange.close();
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && (args[0].equals("help") || args[0].equals("-h") || args[0].equals("--help"))) {
+      System.out.print(USAGE);
+      return;
+    }
+    Map<String, String> settings = new LinkedHashMap<>();
+    int port = 9090;
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals <= 0) {
+        System.err.println("Expected key=value but got: " + arg);
+        System.err.print(USAGE);
+        System.exit(2);
+      }
+      String key = arg.substring(0, equals);
+      String value = arg.substring(equals + 1);
+      if (key.equals("port")) {
+        port = Integer.parseInt(value);
+      } else if (key.equals("config")) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(value))) {
+          properties.load(reader);
+        }
+        for (String name : properties.stringPropertyNames()) {
+          settings.put(name, properties.getProperty(name).trim());
+        }
+      } else {
+        settings.put(key, value);
+      }
+    }
+    FakeProviders providers = start(port, settings);
+    Runtime.getRuntime().addShutdownHook(new Thread(providers::close));
+    System.out.println("PayStack and Twilio stand-ins listening on port " + providers.port());
+  }
+
+  @FunctionalInterface
+  private interface Handler {
+    void handle(HttpExchange exchange) throws IOException;
+  }
+}
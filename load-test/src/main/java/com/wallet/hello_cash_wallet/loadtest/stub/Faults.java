@@ -0,0 +1,146 @@
+package com.wallet.hello_cash_wallet.loadtest.stub;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and failure behaviour of one stubbed endpoint. Settings are volatile so a running test can change them
+// through the admin endpoint; each request reads them once.
+//   latency       fixed:MS, uniform:MIN:MAX or lognormal:MEDIAN:P99 (milliseconds)
+//   error-rate    fraction of requests answered with 500
+//   throttle-rate fraction of requests answered with 429
+//   rate-limit    requests per second served before answering 429, 0 for unlimited
+//   hang-rate     fraction of requests held for hang-ms before a 504, to exercise client read timeouts
+final class Faults {
+
+  static final int PASS = 0;
+
+  private final String endpoint;
+  private final AtomicInteger windowCount = new AtomicInteger();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder injected = new LongAdder();
+  private volatile long windowSecond;
+  private volatile Latency latency = Latency.parse("fixed:0");
+  private volatile double errorRate;
+  private volatile double throttleRate;
+  private volatile int rateLimit;
+  private volatile double hangRate;
+  private volatile long hangMillis = 30_000;
+
+  Faults(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  String endpoint() {
+    return endpoint;
+  }
+
+  // Applies the latency and returns the status to fail with, or PASS
+  int apply() throws InterruptedException {
+    requests.increment();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long delay = latency.sampleMillis(random);
+    if (delay > 0) {
+      Thread.sleep(delay);
+    }
+    int status = PASS;
+    if (random.nextDouble() < hangRate) {
+      Thread.sleep(hangMillis);
+      status = 504;
+    } else if (overRateLimit() || random.nextDouble() < throttleRate) {
+      status = 429;
+    } else if (random.nextDouble() < errorRate) {
+      status = 500;
+    }
+    if (status != PASS) {
+      injected.increment();
+    }
+    return status;
+  }
+
+  // Fixed one-second windows; coarse, but it is how most provider limits behave from the client's side
+  private boolean overRateLimit() {
+    int limit = rateLimit;
+    if (limit <= 0) {
+      return false;
+    }
+    long second = System.currentTimeMillis() / 1000;
+    if (second != windowSecond) {
+      synchronized (this) {
+        if (second != windowSecond) {
+          windowSecond = second;
+          windowCount.set(0);
+        }
+      }
+    }
+    return windowCount.incrementAndGet() > limit;
+  }
+
+  void configure(String setting, String value) {
+    switch (setting) {
+      case "latency" -> latency = Latency.parse(value);
+      case "error-rate" -> errorRate = fraction(value);
+      case "throttle-rate" -> throttleRate = fraction(value);
+      case "rate-limit" -> rateLimit = Integer.parseInt(value);
+      case "hang-rate" -> hangRate = fraction(value);
+      case "hang-ms" -> hangMillis = Long.parseLong(value);
+      default -> throw new IllegalArgumentException("Unknown setting " + endpoint + "." + setting);
+    }
+  }
+
+  Map<String, Object> describe() {
+    return Map.of(
+            "latency", latency.spec(),
+            "error-rate", errorRate,
+            "throttle-rate", throttleRate,
+            "rate-limit", rateLimit,
+            "hang-rate", hangRate,
+            "hang-ms", hangMillis,
+            "requests", requests.sum(),
+            "faults-injected", injected.sum());
+  }
+
+  private static double fraction(String value) {
+    double fraction = Double.parseDouble(value);
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("Expected a fraction between 0 and 1 but got " + value);
+    }
+    return fraction;
+  }
+
+  private record Latency(String spec, String kind, double a, double b) {
+
+    private static final double Z_99 = 2.3263;
+
+    static Latency parse(String spec) {
+      String[] parts = spec.toLowerCase(Locale.ROOT).split(":");
+      switch (parts[0]) {
+        case "fixed":
+          return new Latency(spec, parts[0], Double.parseDouble(parts[1]), 0);
+        case "uniform":
+          return new Latency(spec, parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+        case "lognormal": {
+          // Parameterised by median and p99, which are the numbers provider dashboards show
+          double median = Double.parseDouble(parts[1]);
+          double p99 = Double.parseDouble(parts[2]);
+          if (median <= 0 || p99 < median) {
+            throw new IllegalArgumentException("lognormal needs 0 < median <= p99: " + spec);
+          }
+          return new Latency(spec, parts[0], Math.log(median), Math.log(p99 / median) / Z_99);
+        }
+        default:
+          throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+      }
+    }
+
+    long sampleMillis(ThreadLocalRandom random) {
+      return switch (kind) {
+        case "fixed" -> (long) a;
+        case "uniform" -> (long) (a + random.nextDouble() * (b - a));
+        default -> Math.round(Math.exp(a + b * random.nextGaussian()));
+      };
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package com.wallet.hello_cash_wallet.loadtest.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The PayStack endpoints the wallet calls: the bank list, account resolution, and the bulk recipient and bulk
+// transfer calls and the transfer verification used by interbank settlement. Responses follow PayStack's envelope of
+// status, message and data. Any 10-digit account resolves at a known bank, to a name derived from the account number.
+// Transfers are remembered by reference: a bulk request repeating one is refused as a duplicate, and a remembered
+// transfer verifies as settled.
+final class PayStackStub {
+
+  private static final String[][] KNOWN_BANKS = {
+          {"Access Bank", "044"}, {"Citibank Nigeria", "023"}, {"Ecobank Nigeria", "050"},
+          {"Fidelity Bank", "070"}, {"First Bank of Nigeria", "011"}, {"First City Monument Bank", "214"},
+          {"Guaranty Trust Bank", "058"}, {"Kuda Bank", "50211"}, {"Polaris Bank", "076"},
+          {"Stanbic IBTC Bank", "221"}, {"Sterling Bank", "232"}, {"Union Bank of Nigeria", "032"},
+          {"United Bank For Africa", "033"}, {"Wema Bank", "035"}, {"Zenith Bank", "057"}};
+  private static final String[] FIRST_NAMES = {"Ada", "Chidi", "Emeka", "Funke", "Ngozi", "Tunde", "Yemi", "Zainab"};
+  private static final String[] LAST_NAMES = {"Adeyemi", "Bello", "Eze", "Ibrahim", "Nwosu", "Okafor", "Okoro", "Balogun"};
+
+  private final Map<String, Faults> faults;
+  private final List<String[]> banks;
+  private final String bankList;
+  private final AtomicLong codes = new AtomicLong();
+  private final Map<String, String> transferCodes = new ConcurrentHashMap<>();
+
+  PayStackStub(Map<String, Faults> faults, int bankCount) {
+    this.faults = faults;
+    this.banks = banks(bankCount);
+    this.bankList = bankList(banks);
+  }
+
+  void banks(HttpExchange exchange) throws IOException {
+    if (rejected(exchange, "paystack.banks")) {
+      return;
+    }
+    Http.json(exchange, 200, bankList);
+  }
+
+  void resolve(HttpExchange exchange) throws IOException {
+    if (rejected(exchange, "paystack.resolve")) {
+      return;
+    }
+    Map<String, String> query = Http.form(exchange.getRequestURI().getRawQuery());
+    String accountNumber = query.get("account_number");
+    if (!isAccountNumber(accountNumber) || !isKnownBank(query.get("bank_code"))) {
+      Http.json(exchange, 422, "{\"status\":false,\"message\":\"Could not resolve account name. Check parameters or try again.\"}");
+      return;
+    }
+    Http.json(exchange, 200, "{\"status\":true,\"message\":\"Account number resolved\",\"data\":{"
+            + "\"account_number\":" + Http.quote(accountNumber)
+            + ",\"account_name\":" + Http.quote(accountName(accountNumber))
+            + ",\"bank_id\":" + bankId(query.get("bank_code")) + "}}");
+  }
+
+  void createRecipients(HttpExchange exchange) throws IOException {
+    if (rejected(exchange, "paystack.recipients")) {
+      return;
+    }
+    String body = Http.body(exchange);
+    List<String> accounts = Http.strings(body, "account_number");
+    List<String> bankCodes = Http.strings(body, "bank_code");
+    StringBuilder success = new StringBuilder();
+    StringBuilder errors = new StringBuilder();
+    for (int i = 0; i < accounts.size() && i < bankCodes.size(); i++) {
+      String accountNumber = accounts.get(i);
+      String bankCode = bankCodes.get(i);
+      if (isAccountNumber(accountNumber) && isKnownBank(bankCode)) {
+        append(success, "{\"recipient_code\":\"RCP_" + Long.toString(codes.incrementAndGet(), 36)
+                + "\",\"details\":{\"account_number\":" + Http.quote(accountNumber)
+                + ",\"account_name\":" + Http.quote(accountName(accountNumber))
+                + ",\"bank_code\":" + Http.quote(bankCode) + "}}");
+      } else {
+        append(errors, "{\"error\":\"Account number is invalid\",\"account_number\":" + Http.quote(accountNumber) + "}");
+      }
+    }
+    Http.json(exchange, 200, "{\"status\":true,\"message\":\"Recipients added successfully\",\"data\":{"
+            + "\"success\":[" + success + "],\"errors\":[" + errors + "]}}");
+  }
+
+  void transfers(HttpExchange exchange) throws IOException {
+    if (rejected(exchange, "paystack.transfers")) {
+      return;
+    }
+    List<String> references = Http.strings(Http.body(exchange), "reference");
+    for (String reference : references) {
+      if (transferCodes.containsKey(reference)) {
+        Http.json(exchange, 400, "{\"status\":false,\"message\":\"Duplicate Transfer Reference\"}");
+        return;
+      }
+    }
+    StringBuilder data = new StringBuilder();
+    for (String reference : references) {
+      String transferCode = "TRF_" + Long.toString(codes.incrementAndGet(), 36);
+      transferCodes.put(reference, transferCode);
+      append(data, "{\"reference\":" + Http.quote(reference)
+              + ",\"transfer_code\":" + Http.quote(transferCode)
+              + ",\"status\":\"pending\"}");
+    }
+    Http.json(exchange, 200, "{\"status\":true,\"message\":\"Transfers queued\",\"data\":[" + data + "]}");
+  }
+
+  void verify(HttpExchange exchange) throws IOException {
+    if (rejected(exchange, "paystack.transfers")) {
+      return;
+    }
+    String path = exchange.getRequestURI().getPath();
+    String reference = path.substring(path.lastIndexOf('/') + 1);
+    String transferCode = transferCodes.get(reference);
+    if (transferCode == null) {
+      Http.json(exchange, 404, "{\"status\":false,\"message\":\"Transfer not found\"}");
+      return;
+    }
+    Http.json(exchange, 200, "{\"status\":true,\"message\":\"Transfer retrieved\",\"data\":{"
+            + "\"reference\":" + Http.quote(reference)
+            + ",\"transfer_code\":" + Http.quote(transferCode)
+            + ",\"status\":\"success\"}}");
+  }
+
+  // Answers with an auth error or an injected fault; returns whether the request has been answered
+  private boolean rejected(HttpExchange exchange, String endpoint) throws IOException {
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      Http.json(exchange, 401, "{\"status\":false,\"message\":\"Authorization header required\"}");
+      return true;
+    }
+    int status;
+    try {
+      status = faults.get(endpoint).apply();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = 503;
+    }
+    if (status == Faults.PASS) {
+      return false;
+    }
+    Http.json(exchange, status, "{\"status\":false,\"message\":\""
+            + (status == 429 ? "Rate limit exceeded" : "Internal error") + "\"}");
+    return true;
+  }
+
+  private boolean isKnownBank(String bankCode) {
+    return bankId(bankCode) > 0;
+  }
+
+  private int bankId(String bankCode) {
+    for (int i = 0; i < banks.size(); i++) {
+      if (banks.get(i)[1].equals(bankCode)) {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  private static boolean isAccountNumber(String value) {
+    if (value == null || value.length() != 10) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String accountName(String accountNumber) {
+    int hash = accountNumber.hashCode() & 0x7fffffff;
+    return FIRST_NAMES[hash % FIRST_NAMES.length] + " " + LAST_NAMES[(hash / FIRST_NAMES.length) % LAST_NAMES.length];
+  }
+
+  private static List<String[]> banks(int count) {
+    List<String[]> banks = new ArrayList<>(Math.max(count, KNOWN_BANKS.length));
+    for (String[] bank : KNOWN_BANKS) {
+      banks.add(bank);
+    }
+    // Pad with microfinance banks so the list is as long as PayStack's
+    for (int i = banks.size(); i < count; i++) {
+      banks.add(new String[]{"Microfinance Bank " + i, String.valueOf(90_000 + i)});
+    }
+    return banks;
+  }
+
+  private static String bankList(List<String[]> banks) {
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < banks.size(); i++) {
+      String name = banks.get(i)[0];
+      append(data, "{\"id\":" + (i + 1)
+              + ",\"name\":" + Http.quote(name)
+              + ",\"slug\":" + Http.quote(name.toLowerCase().replace(' ', '-'))
+              + ",\"code\":" + Http.quote(banks.get(i)[1])
+              + ",\"country\":\"Nigeria\",\"currency\":\"NGN\",\"type\":\"nuban\",\"active\":true}");
+    }
+    return "{\"status\":true,\"message\":\"Banks retrieved\",\"data\":[" + data + "]}";
+  }
+
+  private static void append(StringBuilder list, String item) {
+    if (!list.isEmpty()) {
+      list.append(',');
+    }
+    list.append(item);
+  }
+}
@@ -0,0 +1,74 @@
+package com.wallet.hello_cash_wallet.loadtest.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The Twilio Messages API: POST /2010-04-01/Accounts/{AccountSid}/Messages.json with a form body of To, From
+// and Body, authenticated with HTTP basic auth. Errors use Twilio's code, message and status body.
+final class TwilioStub {
+
+  static final String PATH_PREFIX = "/2010-04-01/Accounts/";
+
+  private final Faults faults;
+  private final AtomicLong messages = new AtomicLong();
+
+  TwilioStub(Faults faults) {
+    this.faults = faults;
+  }
+
+  void messages(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    if (!"POST".equals(exchange.getRequestMethod()) || !path.endsWith("/Messages.json")) {
+      error(exchange, 404, 20404, "The requested resource " + path + " was not found");
+      return;
+    }
+    String accountSid = path.substring(PATH_PREFIX.length(), path.length() - "/Messages.json".length());
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Basic ")) {
+      error(exchange, 401, 20003, "Authenticate");
+      return;
+    }
+    int status;
+    try {
+      status = faults.apply();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = 503;
+    }
+    if (status == 429) {
+      error(exchange, 429, 20429, "Too Many Requests");
+      return;
+    }
+    if (status != Faults.PASS) {
+      error(exchange, status, 20500, "Internal Server Error");
+      return;
+    }
+
+    Map<String, String> form = Http.form(Http.body(exchange));
+    String to = form.get("To");
+    if (to == null || !to.startsWith("+")) {
+      error(exchange, 400, 21211, "The 'To' number " + to + " is not a valid phone number.");
+      return;
+    }
+    String sid = String.format("SM%032x", messages.incrementAndGet());
+    Http.json(exchange, 201, "{\"sid\":\"" + sid + "\""
+            + ",\"account_sid\":" + Http.quote(accountSid)
+            + ",\"to\":" + Http.quote(to)
+            + ",\"from\":" + Http.quote(form.getOrDefault("From", ""))
+            + ",\"body\":" + Http.quote(form.getOrDefault("Body", ""))
+            + ",\"status\":\"queued\",\"num_segments\":\"1\",\"direction\":\"outbound-api\""
+            + ",\"uri\":" + Http.quote(PATH_PREFIX + accountSid + "/Messages/" + sid + ".json") + "}");
+  }
+
+  long sent() {
+    return messages.get();
+  }
+
+  private static void error(HttpExchange exchange, int status, int code, String message) throws IOException {
+    Http.json(exchange, status, "{\"code\":" + code + ",\"message\":" + Http.quote(message)
+            + ",\"more_info\":\"https://www.twilio.com/docs/errors/" + code + "\",\"status\":" + status + "}");
+  }
+}
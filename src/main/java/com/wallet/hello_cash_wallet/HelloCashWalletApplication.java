@@ -2,8 +2,10 @@ package com.wallet.hello_cash_wallet;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HelloCashWalletApplication {
 
 	public static void main(String[] args) {
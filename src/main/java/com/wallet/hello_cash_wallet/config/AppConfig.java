@@ -1,14 +1,115 @@
 package com.wallet.hello_cash_wallet.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
 
+  @Value("${http.client.max-connections:200}")
+  private int maxConnections;
+
+  @Value("${http.client.max-connections-per-host:20}")
+  private int maxConnectionsPerHost;
+
+  @Value("${http.client.paystack.max-connections:50}")
+  private int payStackMaxConnections;
+
+  @Value("${spring.paystack.api.url}")
+  private String payStackApiUrl;
+
+  @Value("${http.client.connect-timeout-ms:2000}")
+  private long connectTimeoutMillis;
+
+  @Value("${http.client.read-timeout-ms:5000}")
+  private long readTimeoutMillis;
+
+  @Value("${http.client.pool-acquire-timeout-ms:1000}")
+  private long poolAcquireTimeoutMillis;
+
+  @Value("${http.client.connection-ttl-ms:300000}")
+  private long connectionTtlMillis;
+
+  @Value("${http.client.idle-eviction-ms:30000}")
+  private long idleEvictionMillis;
+
+  @Value("${http.client.http2-enabled:false}")
+  private boolean http2Enabled;
+
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerHost)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                    .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                    .setTimeToLive(TimeValue.ofMilliseconds(connectionTtlMillis))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                    .build())
+            .build();
+    connectionManager.setMaxPerRoute(route(payStackApiUrl), payStackMaxConnections);
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound").bindTo(meterRegistry);
+    return connectionManager;
+  }
+
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, PoolingHttpClientConnectionManager httpConnectionManager) {
+    ClientHttpRequestFactory requestFactory = http2Enabled ? http2RequestFactory() : pooledRequestFactory(httpConnectionManager);
+    return restTemplateBuilder.requestFactory(() -> requestFactory).build();
+  }
+
+  private ClientHttpRequestFactory pooledRequestFactory(PoolingHttpClientConnectionManager connectionManager) {
+    CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMillis))
+                    .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                    .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMillis))
+            .build();
+    return new HttpComponentsClientHttpRequestFactory(httpClient);
+  }
+
+  // The JDK client negotiates HTTP/2 over TLS and multiplexes requests on its own connections,
+  // so the Apache pool limits and pool metrics do not apply in this mode.
+  private ClientHttpRequestFactory http2RequestFactory() {
+    HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+            .build();
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+    requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+    return requestFactory;
+  }
+
+  private static HttpRoute route(String url) {
+    URI uri = URI.create(url);
+    boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+    int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+    return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
   }
 }
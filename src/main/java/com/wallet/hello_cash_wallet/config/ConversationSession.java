@@ -0,0 +1,50 @@
+package com.wallet.hello_cash_wallet.config;
+
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
+import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
+import lombok.Getter;
+
+// State of one menu conversation. Handlers fill in the request and then advance the step; the step is
+// volatile so the request fields written before it are visible to whichever thread handles the next message.
+@Getter
+public class ConversationSession {
+  private volatile RegistrationRequest registrationRequest;
+  private volatile TransactionRequest transactionRequest;
+  private volatile int step;
+  private volatile long lastAccessNanos;
+
+  ConversationSession() {
+    touch();
+  }
+
+  public void startRegistration() {
+    transactionRequest = null;
+    registrationRequest = new RegistrationRequest();
+    step = 1;
+  }
+
+  public void startTransaction(TransactionType transactionType) {
+    registrationRequest = null;
+    TransactionRequest request = new TransactionRequest();
+    request.setTransactionType(transactionType);
+    transactionRequest = request;
+    step = 1;
+  }
+
+  public boolean isRegistration() {
+    return registrationRequest != null;
+  }
+
+  public boolean isTransaction() {
+    return transactionRequest != null;
+  }
+
+  public void setStep(int step) {
+    this.step = step;
+  }
+
+  void touch() {
+    lastAccessNanos = System.nanoTime();
+  }
+}
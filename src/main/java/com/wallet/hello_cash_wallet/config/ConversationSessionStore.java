@@ -0,0 +1,86 @@
+package com.wallet.hello_cash_wallet.config;
+
+import com.wallet.hello_cash_wallet.enums.Channel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Live conversations per channel, keyed by WebSocket session id or phone number. Sessions idle for
+// longer than the TTL are dropped, and each channel is capped so abandoned sessions cannot grow the heap.
+@Component
+@Slf4j
+public class ConversationSessionStore {
+
+  private final Map<Channel, ConcurrentHashMap<String, ConversationSession>> sessions = new EnumMap<>(Channel.class);
+  private final long idleTtlNanos;
+  private final int maxSessionsPerChannel;
+
+  public ConversationSessionStore(MeterRegistry meterRegistry,
+                                  @Value("${conversation.sessions.idle-ttl-ms:900000}") long idleTtlMillis,
+                                  @Value("${conversation.sessions.max-per-channel:100000}") int maxSessionsPerChannel) {
+    this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+    this.maxSessionsPerChannel = maxSessionsPerChannel;
+    for (Channel channel : Channel.values()) {
+      ConcurrentHashMap<String, ConversationSession> channelSessions = new ConcurrentHashMap<>();
+      sessions.put(channel, channelSessions);
+      Gauge.builder("conversation.sessions", channelSessions, Map::size)
+              .description("Live menu conversations")
+              .tag("channel", channel.getLabel())
+              .register(meterRegistry);
+    }
+  }
+
+  public ConversationSession get(Channel channel, String sessionId) {
+    ConversationSession session = sessions.get(channel).get(sessionId);
+    if (session == null) {
+      return null;
+    }
+    if (isExpired(session, System.nanoTime())) {
+      sessions.get(channel).remove(sessionId, session);
+      return null;
+    }
+    session.touch();
+    return session;
+  }
+
+  // Returns null when the channel is at capacity even after dropping idle sessions
+  public ConversationSession open(Channel channel, String sessionId) {
+    ConcurrentHashMap<String, ConversationSession> channelSessions = sessions.get(channel);
+    ConversationSession existing = channelSessions.get(sessionId);
+    if (existing != null) {
+      existing.touch();
+      return existing;
+    }
+    if (channelSessions.size() >= maxSessionsPerChannel) {
+      evictIdle();
+      if (channelSessions.size() >= maxSessionsPerChannel) {
+        log.warn("Rejecting new {} session, {} sessions are live", channel.getLabel(), channelSessions.size());
+        return null;
+      }
+    }
+    return channelSessions.computeIfAbsent(sessionId, id -> new ConversationSession());
+  }
+
+  public void remove(Channel channel, String sessionId) {
+    sessions.get(channel).remove(sessionId);
+  }
+
+  @Scheduled(fixedDelayString = "${conversation.sessions.sweep-ms:60000}")
+  public void evictIdle() {
+    long now = System.nanoTime();
+    sessions.forEach((channel, channelSessions) ->
+            channelSessions.values().removeIf(session -> isExpired(session, now)));
+  }
+
+  private boolean isExpired(ConversationSession session, long now) {
+    return now - session.getLastAccessNanos() > idleTtlNanos;
+  }
+}
@@ -0,0 +1,57 @@
+package com.wallet.hello_cash_wallet.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.hello_cash_wallet.payload.request.DisbursementRequest;
+import com.wallet.hello_cash_wallet.payload.response.DisbursementSummary;
+import com.wallet.hello_cash_wallet.service.DisbursementService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/disbursements")
+public class DisbursementController {
+
+  private static final Logger logger = LoggerFactory.getLogger(DisbursementController.class);
+  private final DisbursementService disbursementService;
+  private final ObjectMapper objectMapper;
+
+  public DisbursementController(DisbursementService disbursementService, ObjectMapper objectMapper) {
+    this.disbursementService = disbursementService;
+    this.objectMapper = objectMapper;
+  }
+
+  // The response is JSON lines: one result per item as its chunk commits, then a final summary line
+  @PostMapping
+  public void disburse(@RequestBody DisbursementRequest request, HttpServletResponse response) throws IOException {
+    logger.info("Disbursement from {} with {} items", request.getSourceAccount(),
+            request.getItems() == null ? 0 : request.getItems().size());
+    response.setContentType("application/x-ndjson");
+    OutputStream out = response.getOutputStream();
+    DisbursementSummary summary;
+    try {
+      summary = disbursementService.disburse(request, result -> writeLine(out, result));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writeLine(out, summary);
+    out.flush();
+  }
+
+  private void writeLine(OutputStream out, Object value) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(value));
+      out.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
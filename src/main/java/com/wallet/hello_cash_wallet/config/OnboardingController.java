@@ -0,0 +1,58 @@
+package com.wallet.hello_cash_wallet.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.hello_cash_wallet.payload.response.OnboardingSummary;
+import com.wallet.hello_cash_wallet.service.OnboardingService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/onboarding")
+public class OnboardingController {
+
+  private static final Logger logger = LoggerFactory.getLogger(OnboardingController.class);
+  private final OnboardingService onboardingService;
+  private final ObjectMapper objectMapper;
+
+  public OnboardingController(OnboardingService onboardingService, ObjectMapper objectMapper) {
+    this.onboardingService = onboardingService;
+    this.objectMapper = objectMapper;
+  }
+
+  // The body is the raw CSV or JSON-lines file. The response is JSON lines: one line per rejected row while
+  // the import runs, then a final summary line.
+  @PostMapping("/import")
+  public void importUsers(@RequestParam(value = "format", defaultValue = "csv") String format, InputStream body,
+                          HttpServletResponse response) throws IOException {
+    logger.info("Starting bulk onboarding import, format={}", format);
+    response.setContentType("application/x-ndjson");
+    OutputStream out = response.getOutputStream();
+    OnboardingSummary summary;
+    try {
+      summary = onboardingService.importUsers(body, format, failure -> writeLine(out, failure));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writeLine(out, summary);
+    out.flush();
+  }
+
+  private void writeLine(OutputStream out, Object value) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(value));
+      out.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
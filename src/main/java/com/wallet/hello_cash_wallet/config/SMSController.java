@@ -2,6 +2,8 @@ package com.wallet.hello_cash_wallet.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -14,17 +16,22 @@ public class SMSController {
 
   private static final Logger logger = LoggerFactory.getLogger(SMSController.class);
   private final SMSHandlerService smsHandlerService;
+  private final SmsIntakeExecutor smsIntakeExecutor;
 
-  public SMSController(SMSHandlerService smsHandlerService) {
+  public SMSController(SMSHandlerService smsHandlerService, SmsIntakeExecutor smsIntakeExecutor) {
     this.smsHandlerService = smsHandlerService;
+    this.smsIntakeExecutor = smsIntakeExecutor;
   }
 
 
+  // Acknowledges as soon as the message is queued; a 503 makes Twilio retry when intake is saturated
   @PostMapping("/receive")
-  public String receiveSMS(@RequestParam("From") String from, @RequestParam("To") String to, @RequestParam("Body") String body) {
+  public ResponseEntity<String> receiveSMS(@RequestParam("From") String from, @RequestParam("To") String to, @RequestParam("Body") String body) {
     logger.info("Received SMS: From={}, To={}, Body={}", from, to, body);
-    smsHandlerService.handleIncomingSms(to, body);
-    return "Received: " + body;
+    // From is the customer's phone and keys both the partition and the conversation; To is always our own number
+    if (!smsIntakeExecutor.submit(from, () -> smsHandlerService.handleIncomingSms(from, body))) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Busy, please retry");
+    }
+    return ResponseEntity.ok("Received: " + body);
   }
 }
-
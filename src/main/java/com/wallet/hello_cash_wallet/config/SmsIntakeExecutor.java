@@ -0,0 +1,93 @@
+package com.wallet.hello_cash_wallet.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Inbound SMS are handled off the webhook thread. Each phone number hashes to one single-threaded partition, so
+// messages from a phone are processed strictly in order while different phones run in parallel. Every partition
+// has a bounded queue; a full queue rejects the message so the webhook can ask Twilio to retry later.
+@Component
+@Slf4j
+public class SmsIntakeExecutor {
+
+  private final ThreadPoolExecutor[] partitions;
+  private final Counter accepted;
+  private final Counter rejected;
+  private final Timer queueWait;
+
+  public SmsIntakeExecutor(MeterRegistry meterRegistry,
+                           @Value("${sms.intake.partitions:8}") int partitionCount,
+                           @Value("${sms.intake.queue-capacity:1000}") int queueCapacity) {
+    this.partitions = new ThreadPoolExecutor[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      int index = i;
+      partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<>(queueCapacity),
+              runnable -> {
+                Thread thread = new Thread(runnable, "sms-intake-" + index);
+                thread.setDaemon(true);
+                return thread;
+              },
+              new ThreadPoolExecutor.AbortPolicy());
+    }
+    Gauge.builder("sms.intake.queue.depth", this, SmsIntakeExecutor::queueDepth)
+            .description("Inbound SMS waiting to be processed")
+            .register(meterRegistry);
+    this.accepted = Counter.builder("sms.intake.messages").tag("outcome", "accepted").register(meterRegistry);
+    this.rejected = Counter.builder("sms.intake.messages").tag("outcome", "rejected").register(meterRegistry);
+    this.queueWait = Timer.builder("sms.intake.wait")
+            .description("Time an inbound SMS spends queued before processing starts")
+            .register(meterRegistry);
+  }
+
+  // Returns false when the phone's partition is full
+  public boolean submit(String phoneNumber, Runnable task) {
+    ThreadPoolExecutor partition = partitions[Math.floorMod(phoneNumber.hashCode(), partitions.length)];
+    long queuedAt = System.nanoTime();
+    try {
+      partition.execute(() -> {
+        queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        try {
+          task.run();
+        } catch (Exception e) {
+          log.error("Error processing inbound SMS from {}: {}", phoneNumber, e.getMessage(), e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      log.warn("SMS intake partition full, rejecting message from {}", phoneNumber);
+      return false;
+    }
+    accepted.increment();
+    return true;
+  }
+
+  private double queueDepth() {
+    int depth = 0;
+    for (ThreadPoolExecutor partition : partitions) {
+      depth += partition.getQueue().size();
+    }
+    return depth;
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    for (ThreadPoolExecutor partition : partitions) {
+      partition.shutdown();
+    }
+    for (ThreadPoolExecutor partition : partitions) {
+      partition.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.wallet.hello_cash_wallet.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.hello_cash_wallet.exception.AccountNotFoundException;
+import com.wallet.hello_cash_wallet.exception.ErrorObject;
+import com.wallet.hello_cash_wallet.service.StatementService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/wallets")
+public class StatementController {
+
+  private static final Logger logger = LoggerFactory.getLogger(StatementController.class);
+  private final StatementService statementService;
+  private final ObjectMapper objectMapper;
+
+  public StatementController(StatementService statementService, ObjectMapper objectMapper) {
+    this.statementService = statementService;
+    this.objectMapper = objectMapper;
+  }
+
+  // from and to are inclusive dates (YYYY-MM-DD) and the wallet's PIN goes in the X-Wallet-Pin header, as for the
+  // history. The body is written while the rows are read, so a long statement starts downloading immediately.
+  @GetMapping("/{virtualAccountNumber}/statement")
+  public void statement(@PathVariable String virtualAccountNumber,
+                        @RequestHeader(value = "X-Wallet-Pin", required = false) String pin,
+                        @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                        @RequestParam(value = "format", defaultValue = "csv") String format,
+                        HttpServletResponse response) throws IOException {
+    logger.info("Statement export for {} from {} to {}, format={}", virtualAccountNumber, from, to, format);
+    boolean csv = "csv".equalsIgnoreCase(format);
+    response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Content-Disposition", "attachment; filename=\"statement-" + virtualAccountNumber + "-" + from
+            + "-" + to + (csv ? ".csv" : ".jsonl") + "\"");
+    try {
+      statementService.export(virtualAccountNumber, pin, from, to, format, response.getOutputStream());
+    } catch (AccountNotFoundException e) {
+      error(response, HttpStatus.NOT_FOUND, "Account not found");
+    } catch (IllegalArgumentException e) {
+      error(response, HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  // The service rejects requests before writing, so the response is still uncommitted here
+  private void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+    response.reset();
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), new ErrorObject(status.value(), message));
+  }
+}
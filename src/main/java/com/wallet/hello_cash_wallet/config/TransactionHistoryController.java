@@ -0,0 +1,37 @@
+package com.wallet.hello_cash_wallet.config;
+
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.payload.response.TransactionHistoryPage;
+import com.wallet.hello_cash_wallet.service.TransactionHistoryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/wallets")
+public class TransactionHistoryController {
+
+  private final TransactionHistoryService transactionHistoryService;
+
+  public TransactionHistoryController(TransactionHistoryService transactionHistoryService) {
+    this.transactionHistoryService = transactionHistoryService;
+  }
+
+  // The wallet's PIN goes in the X-Wallet-Pin header, which keeps it out of URLs and access logs.
+  // Pass the nextCursor of one page as cursor to get the next; type and status filter by TransactionType and TransactionStatus
+  @GetMapping("/{virtualAccountNumber}/transactions")
+  public ResponseEntity<TransactionHistoryPage> history(@PathVariable String virtualAccountNumber,
+                                                        @RequestHeader(value = "X-Wallet-Pin", required = false) String pin,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                                        @RequestParam(value = "type", required = false) TransactionType type,
+                                                        @RequestParam(value = "status", required = false) TransactionStatus status) {
+    TransactionHistoryPage page = transactionHistoryService.history(virtualAccountNumber, pin, cursor, limit, type, status);
+    return ResponseEntity.status(page.getStatusCode()).body(page);
+  }
+}
@@ -1,359 +1,210 @@
 package com.wallet.hello_cash_wallet.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.wallet.hello_cash_wallet.enums.TransactionType;
-import com.wallet.hello_cash_wallet.enums.TransferType;
-import com.wallet.hello_cash_wallet.exception.AccountNotFoundException;
-import com.wallet.hello_cash_wallet.exception.ErrorObject;
-import com.wallet.hello_cash_wallet.exception.UserIdNotFoundException;
-import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
-import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
-import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
-import com.wallet.hello_cash_wallet.payload.response.RegistrationResponse;
+import com.wallet.hello_cash_wallet.enums.Channel;
+import com.wallet.hello_cash_wallet.payload.request.WalletCommand;
 import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
-import com.wallet.hello_cash_wallet.service.PayStackService;
-import com.wallet.hello_cash_wallet.service.TransactionService;
-import com.wallet.hello_cash_wallet.service.UserEntityService;
-import com.wallet.hello_cash_wallet.service.WalletService;
-import com.wallet.hello_cash_wallet.service.impl.BankService;
-import lombok.RequiredArgsConstructor;
+import com.wallet.hello_cash_wallet.payload.response.WalletCommandReply;
+import com.wallet.hello_cash_wallet.service.ConversationService;
+import com.wallet.hello_cash_wallet.service.WalletCommandService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Conversation steps block on the database and on PayStack, so by default they run on virtual threads instead
+// of the container's WebSocket thread. Each session has a lane that handles its messages one at a time in
+// arrival order, and replies go through a decorator that serialises sends and bounds time and buffered bytes.
+// A frame starting with '{' or '[' is a JSON command, or a pipelined batch of them, instead of menu text.
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class WebSocketHandler extends TextWebSocketHandler {
 
-  private final TransactionService transactionService;
-  private final UserEntityService userEntityService;
-  private final WalletService walletService;
-  private final PayStackService payStackService;
-  private final BankService bankService;
-  private final ObjectMapper objectMapper;
-
-  private final Map<String, RegistrationRequest> registrationRequests = new HashMap<>();
-  private final Map<String, Integer> registrationSteps = new HashMap<>();
+  private static final String TOO_MANY_PENDING = "Too many messages in progress. Please wait for a reply.";
 
-  private final Map<String, TransactionRequest> transactionRequests = new HashMap<>();
-  private final Map<String, Integer> transactionSteps = new HashMap<>();
+  private final ConversationService conversationService;
+  private final WalletCommandService walletCommandService;
+  private final ObjectMapper objectMapper;
+  private final int maxCommandsPerFrame;
+  private final int sendTimeLimitMillis;
+  private final int sendBufferSizeLimit;
+  private final int maxPendingMessages;
+  private final ExecutorService executor;
+  private final Map<String, SessionLane> lanes = new ConcurrentHashMap<>();
+
+  public WebSocketHandler(ConversationService conversationService, WalletCommandService walletCommandService,
+                          ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${websocket.protocol.max-commands-per-frame:16}") int maxCommandsPerFrame,
+                          @Value("${websocket.dispatch.virtual-threads:true}") boolean virtualThreads,
+                          @Value("${websocket.dispatch.max-pending:32}") int maxPendingMessages,
+                          @Value("${websocket.send.time-limit-ms:10000}") int sendTimeLimitMillis,
+                          @Value("${websocket.send.buffer-size-limit:524288}") int sendBufferSizeLimit) {
+    this.conversationService = conversationService;
+    this.walletCommandService = walletCommandService;
+    this.objectMapper = objectMapper;
+    this.maxCommandsPerFrame = maxCommandsPerFrame;
+    this.maxPendingMessages = maxPendingMessages;
+    this.sendTimeLimitMillis = sendTimeLimitMillis;
+    this.sendBufferSizeLimit = sendBufferSizeLimit;
+    this.executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    Gauge.builder("websocket.connections", lanes, Map::size)
+            .description("Open WebSocket connections")
+            .register(meterRegistry);
+  }
 
   @Override
   public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-    sendMenuInstructions(session);
+    SessionLane lane = new SessionLane(new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis,
+            sendBufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE));
+    lanes.put(session.getId(), lane);
+    lane.session.sendMessage(new TextMessage(conversationService.menu()));
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+    lanes.remove(session.getId());
+    conversationService.end(Channel.WEB_SOCKET, session.getId());
   }
 
   @Override
   protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+    SessionLane lane = lanes.get(session.getId());
+    if (lane == null) {
+      return;
+    }
     String payload = message.getPayload().trim();
-    String sessionId = session.getId();
-
-    switch (payload) {
-      case "1":
-        startRegistration(session, sessionId);
-        break;
-      case "2":
-        startTransaction(session, sessionId, TransactionType.TRANSFER);
-        session.sendMessage(new TextMessage("Do you want to transfer to (A) HelloCash user or (B) Other bank? Please enter A or B:"));
-        break;
-      case "3":
-        startTransaction(session, sessionId, TransactionType.BUY_CARD);
-        session.sendMessage(new TextMessage("Please enter the phone number to buy airtime for:"));
-        break;
-      case "4":
-        startTransaction(session, sessionId, TransactionType.BUY_DATA);
-        session.sendMessage(new TextMessage("Please enter the phone number to buy data for:"));
-        break;
-      default:
-        processSteps(session, payload, sessionId);
+    if (executor == null) {
+      lane.reply(payload);
+    } else {
+      lane.submit(payload);
     }
   }
 
-  private void sendMenuInstructions(WebSocketSession session) throws IOException {
-    String instructions = "Welcome! Please select an option:\n" +
-            "1. Register\n" +
-            "2. Transfer\n" +
-            "3. Buy Airtime\n" +
-            "4. Buy Data\n" +
-            "Send the option number (1, 2, 3, or 4) to proceed.";
-    session.sendMessage(new TextMessage(instructions));
-  }
-
-  private void startRegistration(WebSocketSession session, String sessionId) throws IOException {
-    registrationRequests.put(sessionId, new RegistrationRequest());
-    registrationSteps.put(sessionId, 1);
-    session.sendMessage(new TextMessage("Please enter your full name:"));
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
   }
 
-  private void startTransaction(WebSocketSession session, String sessionId, TransactionType transactionType) throws IOException {
-    transactionRequests.put(sessionId, new TransactionRequest());
-    transactionRequests.get(sessionId).setTransactionType(transactionType);
-    transactionSteps.put(sessionId, 1);
-  }
+  private final class SessionLane implements Runnable {
+    private final WebSocketSession session;
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
 
-  private void processSteps(WebSocketSession session, String payload, String sessionId) throws IOException {
-    if (registrationRequests.containsKey(sessionId)) {
-      processRegistrationSteps(session, payload, sessionId);
-    } else if (transactionRequests.containsKey(sessionId)) {
-      TransactionRequest request = transactionRequests.get(sessionId);
-      TransactionType transactionType = request.getTransactionType();
+    private SessionLane(WebSocketSession session) {
+      this.session = session;
+    }
 
-      if (transactionType == null) {
-        session.sendMessage(new TextMessage("Invalid session. Please start over by selecting an option."));
+    void submit(String payload) {
+      if (queued.get() >= maxPendingMessages) {
+        send(TOO_MANY_PENDING);
         return;
       }
-
-      switch (transactionType) {
-        case TRANSFER:
-          processTransferSteps(session, payload, sessionId);
-          break;
-        case BUY_CARD:
-          processBuyAirtimeSteps(session, payload, sessionId);
-          break;
-        case BUY_DATA:
-          processBuyDataSteps(session, payload, sessionId);
-          break;
-        default:
-          session.sendMessage(new TextMessage("Invalid session. Please start over by selecting an option."));
+      pending.add(payload);
+      // Only the message that finds the lane idle starts a drain; later ones are picked up by that drain
+      if (queued.getAndIncrement() == 0) {
+        executor.execute(this);
       }
-    } else {
-      session.sendMessage(new TextMessage("Invalid session. Please start over by selecting an option."));
     }
-  }
-
-  private void processRegistrationSteps(WebSocketSession session, String payload, String sessionId) throws IOException {
-    RegistrationRequest request = registrationRequests.get(sessionId);
-    int step = registrationSteps.getOrDefault(sessionId, 1);
-
-    try {
-      switch (step) {
-        case 1:
-          request.setFullName(payload);
-          session.sendMessage(new TextMessage("Please enter your date of birth (YYYY-MM-DD):"));
-          registrationSteps.put(sessionId, 2);
-          break;
-        case 2:
-          request.setDateOfBirth(LocalDate.parse(payload));
-          session.sendMessage(new TextMessage("Please enter your BVN:"));
-          registrationSteps.put(sessionId, 3);
-          break;
-        case 3:
-          request.setBvn(payload);
-          session.sendMessage(new TextMessage("Please create Your HelloCash PIN:"));
-          registrationSteps.put(sessionId, 4);
-          break;
-        case 4:
-          request.setPin(payload);
 
-          RegistrationResponse registrationResponse = userEntityService.createUser(request);
-
-          String response = "User registered successfully!\n" +
-                  "Account Name: " + registrationResponse.getFullName() + "\n" +
-                  "Account Number: " + registrationResponse.getVirtualAccountNumber() + "\n" +
-                  "Balance: " + registrationResponse.getBalance();
-          session.sendMessage(new TextMessage(response));
+    @Override
+    public void run() {
+      do {
+        reply(pending.poll());
+      } while (queued.decrementAndGet() > 0);
+    }
 
-          // Clean up session data after successful registration
-          registrationRequests.remove(sessionId);
-          registrationSteps.remove(sessionId);
-          break;
-        default:
-          session.sendMessage(new TextMessage("Invalid registration step. Please start over by selecting an option."));
-          registrationRequests.remove(sessionId);
-          registrationSteps.remove(sessionId);
+    void reply(String payload) {
+      if (payload.startsWith("{") || payload.startsWith("[")) {
+        executeCommands(payload);
+        return;
+      }
+      String reply;
+      try {
+        // A WebSocket caller is anonymous, so the flows ask for the account to debit
+        reply = conversationService.handle(Channel.WEB_SOCKET, session.getId(), null, payload);
+      } catch (Exception e) {
+        log.error("Error handling message for session {}: {}", session.getId(), e.getMessage(), e);
+        reply = "An unexpected error occurred. Please try again later.";
       }
-    } catch (Exception e) {
-      log.error("Error processing registration step: {}", e.getMessage());
-      session.sendMessage(new TextMessage("Error processing registration. Please try again."));
+      send(reply);
     }
-  }
 
-  private void processTransferSteps(WebSocketSession session, String payload, String sessionId) throws IOException {
-    TransactionRequest request = transactionRequests.get(sessionId);
-    int step = transactionSteps.getOrDefault(sessionId, 1);
-
-    try {
-      switch (step) {
-        case 1:
-          if ("A".equalsIgnoreCase(payload)) {
-            request.setTransferType(TransferType.HELLOCASH);
-            session.sendMessage(new TextMessage("Please enter the source account to be debited:"));
-            transactionSteps.put(sessionId, 2);
-          } else if ("B".equalsIgnoreCase(payload)) {
-            request.setTransferType(TransferType.OTHERS);
-            session.sendMessage(new TextMessage("Please enter the source account to be debited:"));
-            transactionSteps.put(sessionId, 2);
-          } else {
-            session.sendMessage(new TextMessage("Invalid choice. Please enter A or B:"));
-          }
-          break;
-        case 2:
-          request.setVirtualAccountNumber(payload);
-          session.sendMessage(new TextMessage("Please enter the destination account number:"));
-          transactionSteps.put(sessionId, 3);
-          break;
-        case 3:
-          request.setDestinationAccount(payload);
-          if (request.getTransferType() == TransferType.OTHERS) {
-            List<String> bankNames = bankService.getBankNames();
-            String bankListMessage = "Please enter the destination bank name:\n" + String.join(",\n ", bankNames);
-            session.sendMessage(new TextMessage(bankListMessage));
-            transactionSteps.put(sessionId, 4);
-          } else {
-            AccountInfo accountInfo = walletService.nameEnquiry(payload);
-            request.setDestinationAccountName(accountInfo.getAccountName());
-            session.sendMessage(new TextMessage("Destination Account Name: " + accountInfo.getAccountName() + "\nPlease enter the amount:"));
-            transactionSteps.put(sessionId, 5);
-          }
-          break;
-        case 4:
-          String bankName = payload.trim();
-          if (bankService.isValidBankName(bankName)) {
-            String bankCode = bankService.getBankCode(bankName);
-            log.info("Bank code for {} is {}", bankName, bankCode);
-            request.setBankCode(bankCode);
-            try {
-              AccountInfo accountInfo = payStackService.validateAccount(request.getDestinationAccount(), bankCode);
-              request.setDestinationAccountName(accountInfo.getAccountName());
-              session.sendMessage(new TextMessage("Destination Account Name: " + accountInfo.getAccountName() + "\nPlease enter the amount:"));
-              transactionSteps.put(sessionId, 5);
-            } catch (Exception e) {
-              session.sendMessage(new TextMessage("Account validation failed. Please try again."));
-            }
-          } else {
-            session.sendMessage(new TextMessage("Invalid bank name. Please enter a valid bank name:"));
-          }
-          break;
-        case 5:
-          request.setAmount(new BigDecimal(payload));
-          session.sendMessage(new TextMessage("Please enter your HelloCash PIN:"));
-          transactionSteps.put(sessionId, 6);
-          break;
-        case 6:
-          request.setPin(payload);
-          TransactionsResponse transactionsResponse = transactionService.performTransaction(request);
-          String response = "Transfer successful!\n" +
-                  "Amount: " + transactionsResponse.getAmount() + "\n" +
-                  "Balance: " + transactionsResponse.getBalance();
-          session.sendMessage(new TextMessage(response));
-          // Clean up session data after successful transaction
-          transactionRequests.remove(sessionId);
-          transactionSteps.remove(sessionId);
-          break;
-        default:
-          session.sendMessage(new TextMessage("Invalid transfer step. Please start over by selecting an option."));
-          transactionRequests.remove(sessionId);
-          transactionSteps.remove(sessionId);
+    // Commands in a frame run in order and each reply is sent as soon as it is ready, tagged with the command id
+    private void executeCommands(String payload) {
+      WalletCommand[] commands;
+      try {
+        commands = payload.startsWith("[")
+                ? objectMapper.readValue(payload, WalletCommand[].class)
+                : new WalletCommand[]{objectMapper.readValue(payload, WalletCommand.class)};
+      } catch (JsonProcessingException e) {
+        sendReply(rejection(null, "Malformed command frame"));
+        return;
+      }
+      if (commands.length > maxCommandsPerFrame) {
+        sendReply(rejection(null, "At most " + maxCommandsPerFrame + " commands are allowed per frame"));
+        return;
+      }
+      for (WalletCommand command : commands) {
+        WalletCommandReply reply;
+        try {
+          reply = command == null ? rejection(null, "Empty command") : walletCommandService.execute(command);
+        } catch (Exception e) {
+          log.error("Error executing command for session {}: {}", session.getId(), e.getMessage(), e);
+          reply = WalletCommandReply.builder()
+                  .v(WalletCommandService.PROTOCOL_VERSION)
+                  .id(command.getId())
+                  .result(TransactionsResponse.builder().statusCode(500).message("An unexpected error occurred. Please try again later.").build())
+                  .build();
+        }
+        sendReply(reply);
       }
-    } catch (Exception e) {
-      log.error("Error processing transfer step: {}", e.getMessage());
-      session.sendMessage(new TextMessage("Error processing transfer. Please try again."));
     }
-  }
 
-
-  private void processBuyAirtimeSteps(WebSocketSession session, String payload, String sessionId) throws IOException {
-    TransactionRequest request = transactionRequests.get(sessionId);
-    int step = transactionSteps.getOrDefault(sessionId, 1);
-
-    try {
-      switch (step) {
-        case 1:
-          request.setVirtualAccountNumber(payload);
-          session.sendMessage(new TextMessage("Please enter the amount of airtime to buy:"));
-          transactionSteps.put(sessionId, 2);
-          break;
-        case 2:
-          request.setAmount(new BigDecimal(payload));
-          session.sendMessage(new TextMessage("Please enter your PIN:"));
-          transactionSteps.put(sessionId, 3);
-          break;
-        case 3:
-          request.setPin(payload);
-          TransactionsResponse transactionResponse = transactionService.performTransaction(request);
-          sendTransactionResponse(session, transactionResponse);
-          transactionRequests.remove(sessionId);
-          transactionSteps.remove(sessionId);
-          break;
-        default:
-          session.sendMessage(new TextMessage("Invalid airtime step. Please start over by selecting an option."));
-          transactionRequests.remove(sessionId);
-          transactionSteps.remove(sessionId);
+    private void sendReply(WalletCommandReply reply) {
+      try {
+        send(objectMapper.writeValueAsString(reply));
+      } catch (JsonProcessingException e) {
+        log.error("Failed to serialise reply for session {}: {}", session.getId(), e.getMessage());
       }
-    } catch (Exception e) {
-      log.error("Error processing airtime step: {}", e.getMessage());
-      sendErrorMessage(session, e);
     }
-  }
 
-  private void processBuyDataSteps(WebSocketSession session, String payload, String sessionId) throws IOException {
-    TransactionRequest request = transactionRequests.get(sessionId);
-    int step = transactionSteps.getOrDefault(sessionId, 1);
-
-    try {
-      switch (step) {
-        case 1:
-          request.setVirtualAccountNumber(payload);
-          session.sendMessage(new TextMessage("Please enter the amount of data to buy:"));
-          transactionSteps.put(sessionId, 2);
-          break;
-        case 2:
-          request.setAmount(new BigDecimal(payload));
-          session.sendMessage(new TextMessage("Please enter your PIN:"));
-          transactionSteps.put(sessionId, 3);
-          break;
-        case 3:
-          request.setPin(payload);
-          TransactionsResponse transactionResponse = transactionService.performTransaction(request);
-          sendTransactionResponse(session, transactionResponse);
-          transactionRequests.remove(sessionId);
-          transactionSteps.remove(sessionId);
-          break;
-        default:
-          session.sendMessage(new TextMessage("Invalid data step. Please start over by selecting an option."));
-          transactionRequests.remove(sessionId);
-          transactionSteps.remove(sessionId);
+    private void send(String text) {
+      if (!session.isOpen()) {
+        return;
+      }
+      try {
+        session.sendMessage(new TextMessage(text));
+      } catch (IOException | RuntimeException e) {
+        // The decorator closes sessions that exceed the send limits
+        log.warn("Failed to send to session {}: {}", session.getId(), e.getMessage());
       }
-    } catch (Exception e) {
-      log.error("Error processing data step: {}", e.getMessage());
-      sendErrorMessage(session, e);
     }
   }
 
-  private void sendTransactionResponse(WebSocketSession session, TransactionsResponse transactionResponse) throws IOException {
-    String responseMessage = "Transaction Response:\n" +
-            "Response Code: " + transactionResponse.getStatusCode() + "\n" +
-            "Response Message: " + transactionResponse.getMessage();
-
-    session.sendMessage(new TextMessage(responseMessage));
-  }
-
-  private void sendErrorMessage(WebSocketSession session, Exception e) throws IOException {
-    String errorMessage;
-    int statusCode;
-
-    if (e instanceof AccountNotFoundException || e instanceof UserIdNotFoundException) {
-      errorMessage = "Account not found. Please check your details and try again.";
-      statusCode = HttpStatus.NOT_FOUND.value();
-    } else {
-      errorMessage = "An unexpected error occurred. Please try again later.";
-      statusCode = HttpStatus.INTERNAL_SERVER_ERROR.value();
-      log.error("Unexpected error occurred: {}", e.getMessage(), e);
-    }
-
-    ErrorObject errorObject = new ErrorObject(statusCode, errorMessage);
-    session.sendMessage(new TextMessage(objectMapper.writeValueAsString(errorObject)));
+  private static WalletCommandReply rejection(String id, String message) {
+    return WalletCommandReply.builder()
+            .v(WalletCommandService.PROTOCOL_VERSION)
+            .id(id)
+            .result(TransactionsResponse.builder().statusCode(400).message(message).build())
+            .build();
   }
 }
-
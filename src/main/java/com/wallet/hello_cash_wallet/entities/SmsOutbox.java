@@ -0,0 +1,28 @@
+package com.wallet.hello_cash_wallet.entities;
+
+import com.wallet.hello_cash_wallet.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "sms_outbox", indexes = @Index(name = "idx_sms_outbox_due", columnList = "status, next_attempt_at"))
+public class SmsOutbox extends BaseClass {
+  @Column(nullable = false)
+  private String phoneNumber;
+  @Column(nullable = false, length = 1600)
+  private String message;
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private OutboxStatus status;
+  private int attempts;
+  @Column(name = "next_attempt_at", nullable = false)
+  private LocalDateTime nextAttemptAt;
+  private String lastError;
+}
@@ -1,24 +1,40 @@
 package com.wallet.hello_cash_wallet.entities;
 
+import com.wallet.hello_cash_wallet.enums.EntryType;
 import com.wallet.hello_cash_wallet.enums.TransactionStatus;
 import com.wallet.hello_cash_wallet.enums.TransactionType;
 import com.wallet.hello_cash_wallet.enums.TransferType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Immutable;
 
 import java.math.BigDecimal;
 
+// Journal rows are written by LedgerService in JDBC batches; this entity is the read side of the ledger.
+// The table is partitioned by month on created_at (V4), so its primary key is (id, created_at); id alone is still unique.
 @Getter
 @Setter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "transactions")
+@Immutable
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_status", columnList = "transaction_status, id"),
+        @Index(name = "idx_transactions_account_created", columnList = "account_id, created_at, id")})
 @Entity
 public class Transaction extends BaseClass {
+  @Column(name = "transfer_id")
+  private String transferId;
+  @Enumerated(EnumType.STRING)
+  private EntryType entryType;
   @Enumerated(EnumType.STRING)
   private TransactionType transactionType;
   private BigDecimal amount;
+  private BigDecimal balanceAfter;
+  private String counterpartyAccount;
+  private String counterpartyBankCode;
+  private String counterpartyName;
+  private String providerReference;
   private String description;
   @Enumerated(EnumType.STRING)
   private TransactionStatus transactionStatus;
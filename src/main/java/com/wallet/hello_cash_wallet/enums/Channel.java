@@ -0,0 +1,15 @@
+package com.wallet.hello_cash_wallet.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum Channel {
+  WEB_SOCKET("WebSocket"),
+  SMS("SMS");
+
+  private final String label;
+
+  Channel(String label) {
+    this.label = label;
+  }
+}
@@ -0,0 +1,15 @@
+package com.wallet.hello_cash_wallet.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum EntryType {
+  DEBIT("Debit"),
+  CREDIT("Credit");
+
+  private final String label;
+
+  EntryType(String label) {
+    this.label = label;
+  }
+}
@@ -0,0 +1,17 @@
+package com.wallet.hello_cash_wallet.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum OutboxStatus {
+  PENDING("Pending"),
+  SENDING("Sending"),
+  DELIVERED("Delivered"),
+  FAILED("Failed");
+
+  private final String label;
+
+  OutboxStatus(String label) {
+    this.label = label;
+  }
+}
@@ -5,6 +5,8 @@ import lombok.Getter;
 @Getter
 public enum TransactionStatus {
   PENDING("Pending"),
+  SUBMITTING("Submitting"),
+  SUBMITTED("Submitted"),
   COMPLETED("Complete"),
   SUCCESS("Success"),
   FAILED("Failed");
@@ -0,0 +1,7 @@
+package com.wallet.hello_cash_wallet.exception;
+
+public class InvalidAccountException extends RuntimeException {
+  public InvalidAccountException(String message) {
+    super(message);
+  }
+}
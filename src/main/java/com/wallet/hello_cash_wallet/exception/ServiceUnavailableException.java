@@ -0,0 +1,7 @@
+package com.wallet.hello_cash_wallet.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+  public ServiceUnavailableException(String message) {
+    super(message);
+  }
+}
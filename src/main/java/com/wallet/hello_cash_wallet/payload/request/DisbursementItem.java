@@ -0,0 +1,15 @@
+package com.wallet.hello_cash_wallet.payload.request;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class DisbursementItem {
+  private String destinationAccount;
+  private BigDecimal amount;
+}
@@ -0,0 +1,19 @@
+package com.wallet.hello_cash_wallet.payload.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@Builder
+public class DisbursementRequest {
+  private String sourceAccount;
+  private String pin;
+  private String reference;
+  private List<DisbursementItem> items;
+}
@@ -0,0 +1,19 @@
+package com.wallet.hello_cash_wallet.payload.request;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class PayoutInstruction {
+  private String reference;
+  private String accountNumber;
+  private String bankCode;
+  private String accountName;
+  private BigDecimal amount;
+  private String reason;
+}
@@ -0,0 +1,20 @@
+package com.wallet.hello_cash_wallet.payload.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+// One command of the JSON WebSocket protocol. type is TRANSFER, BUY_CARD, BUY_DATA or REGISTER; transfers and
+// purchases carry a transaction, registrations carry a registration. id is echoed back on the reply.
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@Builder
+public class WalletCommand {
+  private Integer v;
+  private String id;
+  private String type;
+  private TransactionRequest transaction;
+  private RegistrationRequest registration;
+}
@@ -0,0 +1,24 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// index is the position of the item in the request; status is SUCCESS, REJECTED, NOT_FOUND or INSUFFICIENT_BALANCE
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DisbursementResult {
+  private int index;
+  private String destinationAccount;
+  private BigDecimal amount;
+  private String status;
+  private String transferId;
+  private String message;
+}
@@ -0,0 +1,24 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DisbursementSummary {
+  private int statusCode;
+  private String message;
+  private int total;
+  private int succeeded;
+  private int failed;
+  private BigDecimal amountDisbursed;
+  private BigDecimal balance;
+}
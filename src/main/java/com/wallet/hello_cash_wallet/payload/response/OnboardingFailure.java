@@ -0,0 +1,16 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// row is the line number in the uploaded file
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnboardingFailure {
+  private long row;
+  private String reason;
+}
@@ -0,0 +1,16 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnboardingSummary {
+  private long total;
+  private long imported;
+  private long failed;
+}
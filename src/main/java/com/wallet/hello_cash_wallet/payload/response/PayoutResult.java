@@ -0,0 +1,19 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutResult {
+  private String reference;
+  private String transferCode;
+  // SUCCESS, FAILED, or SUBMITTED while the provider is still working on it
+  private TransactionStatus status;
+  private String message;
+}
@@ -0,0 +1,36 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.wallet.hello_cash_wallet.enums.EntryType;
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One journal entry as seen by the wallet holder
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionHistoryItem {
+  private Long id;
+  private String transferId;
+  private EntryType entryType;
+  private TransactionType transactionType;
+  private TransferType transferType;
+  private TransactionStatus transactionStatus;
+  private BigDecimal amount;
+  private BigDecimal balanceAfter;
+  private String counterpartyAccount;
+  private String counterpartyBankCode;
+  private String counterpartyName;
+  private String description;
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// nextCursor is absent on the last page
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionHistoryPage {
+  private int statusCode;
+  private String message;
+  private List<TransactionHistoryItem> items;
+  private String nextCursor;
+}
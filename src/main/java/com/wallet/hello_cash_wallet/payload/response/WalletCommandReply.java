@@ -0,0 +1,20 @@
+package com.wallet.hello_cash_wallet.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WalletCommandReply {
+  private int v;
+  private String id;
+  private String type;
+  private TransactionsResponse result;
+  private RegistrationResponse registration;
+}
@@ -0,0 +1,26 @@
+package com.wallet.hello_cash_wallet.repository;
+
+import com.wallet.hello_cash_wallet.entities.SmsOutbox;
+import com.wallet.hello_cash_wallet.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SmsOutboxRepository extends JpaRepository<SmsOutbox,Long> {
+
+  // SENDING rows whose lease has run out belong to a dispatcher that died mid-send and are picked up again
+  @Query(value = "select * from sms_outbox where status in ('PENDING', 'SENDING') and next_attempt_at <= :now " +
+          "order by next_attempt_at limit :limit for update skip locked", nativeQuery = true)
+  List<SmsOutbox> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+  @Modifying
+  @Query("update SmsOutbox o set o.status = :status, o.attempts = :attempts, o.nextAttemptAt = :nextAttemptAt, " +
+          "o.lastError = :lastError, o.updatedAt = :now where o.id = :id")
+  int updateDelivery(@Param("id") Long id, @Param("status") OutboxStatus status, @Param("attempts") int attempts,
+                     @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError,
+                     @Param("now") LocalDateTime now);
+}
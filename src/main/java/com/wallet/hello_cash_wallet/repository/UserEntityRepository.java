@@ -2,8 +2,19 @@ package com.wallet.hello_cash_wallet.repository;
 
 import com.wallet.hello_cash_wallet.entities.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface UserEntityRepository extends JpaRepository<UserEntity,Long> {
   UserEntity findByPhoneNumber(String phoneNumber);
 
+  @Query("select u.bvn from UserEntity u where u.bvn in :bvns")
+  List<String> findExistingBvns(@Param("bvns") Collection<String> bvns);
+
+  @Query("select u.phoneNumber from UserEntity u where u.phoneNumber in :phoneNumbers")
+  List<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
 }
@@ -0,0 +1,6 @@
+package com.wallet.hello_cash_wallet.repository;
+
+public interface WalletIdView {
+  Long getId();
+  String getVirtualAccountNumber();
+}
@@ -0,0 +1,7 @@
+package com.wallet.hello_cash_wallet.repository;
+
+public interface WalletOwnerView {
+  Long getWalletId();
+  String getPin();
+  String getPhoneNumber();
+}
@@ -1,9 +1,31 @@
 package com.wallet.hello_cash_wallet.repository;
 
 import com.wallet.hello_cash_wallet.entities.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface WalletRepository extends JpaRepository<Wallet,Long> {
   boolean existsByVirtualAccountNumber(String account);
   Wallet findByVirtualAccountNumber(String account);
+
+  @Query("select w.id from Wallet w where w.virtualAccountNumber = :account")
+  Long findIdByVirtualAccountNumber(@Param("account") String account);
+
+  @Query("select w.id as id, w.virtualAccountNumber as virtualAccountNumber from Wallet w where w.virtualAccountNumber in :accounts")
+  List<WalletIdView> findIdsByVirtualAccountNumbers(@Param("accounts") Collection<String> accounts);
+
+  @Query("select w.id as walletId, u.pin as pin, u.phoneNumber as phoneNumber from Wallet w join w.user u where w.virtualAccountNumber = :account")
+  WalletOwnerView findOwnerByVirtualAccountNumber(@Param("account") String account);
+
+  // Rows are locked in ascending id order so that two transfers touching the same pair of wallets
+  // always queue behind each other instead of deadlocking.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select w from Wallet w where w.id in :ids order by w.id")
+  List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,12 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.enums.Channel;
+
+public interface ConversationService {
+  String menu();
+
+  // callerPhoneNumber is null when the channel cannot identify the caller
+  String handle(Channel channel, String sessionId, String callerPhoneNumber, String input);
+
+  void end(Channel channel, String sessionId);
+}
@@ -0,0 +1,12 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.payload.request.DisbursementRequest;
+import com.wallet.hello_cash_wallet.payload.response.DisbursementResult;
+import com.wallet.hello_cash_wallet.payload.response.DisbursementSummary;
+
+import java.util.function.Consumer;
+
+public interface DisbursementService {
+  // Item results are passed to results as each chunk commits
+  DisbursementSummary disburse(DisbursementRequest request, Consumer<DisbursementResult> results);
+}
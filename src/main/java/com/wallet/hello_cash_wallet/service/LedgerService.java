@@ -0,0 +1,17 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.entities.Transaction;
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface LedgerService {
+  String postTransfer(Wallet source, Wallet destination, BigDecimal amount, TransactionType transactionType);
+  String postInterbankDebit(Wallet source, String destinationAccount, String bankCode, String destinationAccountName,
+                            BigDecimal amount, TransactionType transactionType);
+  List<String> postDisbursement(Wallet source, List<Wallet> destinations, List<BigDecimal> amounts, String description);
+  void postReversal(Wallet wallet, String transferId, String counterpartyAccount, BigDecimal amount);
+  void post(List<Transaction> entries);
+}
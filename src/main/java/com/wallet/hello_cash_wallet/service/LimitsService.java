@@ -0,0 +1,23 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface LimitsService {
+  // Returns null and counts the transaction when it is within the wallet's limits, otherwise the reason it is refused.
+  // A counted transaction that does not go through must be handed back with release.
+  String tryAcquire(long walletId, TransactionType transactionType, BigDecimal amount);
+
+  // As tryAcquire for a batch of payments counted as one transaction: largest is held to the per-transaction maximum
+  // and total to the daily limit
+  String tryAcquireBatch(long walletId, TransactionType transactionType, BigDecimal largest, BigDecimal total);
+
+  // Hands back a transaction acquired just now
+  void release(long walletId, TransactionType transactionType, BigDecimal amount);
+
+  // Hands back a transaction acquired at acquiredAt (journal wall clock); only what is still inside the windows is
+  // taken off
+  void release(long walletId, TransactionType transactionType, BigDecimal amount, LocalDateTime acquiredAt);
+}
@@ -0,0 +1,13 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.payload.response.OnboardingFailure;
+import com.wallet.hello_cash_wallet.payload.response.OnboardingSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface OnboardingService {
+  // format is csv or jsonl; failures are reported as they are found and do not stop the import
+  OnboardingSummary importUsers(InputStream input, String format, Consumer<OnboardingFailure> failures) throws IOException;
+}
@@ -1,11 +1,14 @@
 package com.wallet.hello_cash_wallet.service;
 
 import com.wallet.hello_cash_wallet.payload.request.Bank;
+import com.wallet.hello_cash_wallet.payload.request.PayoutInstruction;
 import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
+import com.wallet.hello_cash_wallet.payload.response.PayoutResult;
 import java.util.List;
 
 public interface PayStackService {
-  boolean isValidBankCode(String bankCode);
   List<Bank> getBanks();
   AccountInfo validateAccount(String accountNumber, String bankCode);
+  List<PayoutResult> payout(List<PayoutInstruction> instructions);
+  PayoutResult verify(String reference);
 }
@@ -0,0 +1,8 @@
+package com.wallet.hello_cash_wallet.service;
+
+public interface SmsOutboxService {
+  void queueSms(String toPhoneNumber, String message);
+
+  // Commits on its own, for notices about a business change that is being rolled back
+  void queueSmsInNewTransaction(String toPhoneNumber, String message);
+}
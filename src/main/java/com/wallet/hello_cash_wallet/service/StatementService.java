@@ -0,0 +1,11 @@
+package com.wallet.hello_cash_wallet.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface StatementService {
+  // Writes the statement for [from, to] to out as csv or jsonl. Unknown accounts are rejected with
+  // AccountNotFoundException, and a wrong pin or bad arguments with IllegalArgumentException, before anything is written.
+  void export(String virtualAccountNumber, String pin, LocalDate from, LocalDate to, String format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,12 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.payload.response.TransactionHistoryPage;
+
+public interface TransactionHistoryService {
+  // Newest first, only for the wallet's PIN. cursor is the nextCursor of the previous page, or null for the first page;
+  // type and status are optional
+  TransactionHistoryPage history(String virtualAccountNumber, String pin, String cursor, Integer limit,
+                                 TransactionType transactionType, TransactionStatus transactionStatus);
+}
@@ -0,0 +1,10 @@
+package com.wallet.hello_cash_wallet.service;
+
+import com.wallet.hello_cash_wallet.payload.request.WalletCommand;
+import com.wallet.hello_cash_wallet.payload.response.WalletCommandReply;
+
+public interface WalletCommandService {
+  int PROTOCOL_VERSION = 1;
+
+  WalletCommandReply execute(WalletCommand command);
+}
@@ -0,0 +1,45 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.util.AccountNumberGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+// Hands out account numbers from blocks of serials reserved through account_number_seq. Every node reserves
+// its own blocks, so numbers are unique across nodes without a retry or an existence check at registration.
+// Serials left in a block when a node stops are skipped, never reused.
+@Component
+public class AccountNumberAllocator {
+
+  // Must match INCREMENT BY of account_number_seq
+  static final int BLOCK_SIZE = 1000;
+
+  private final LongSupplier blockSource;
+  private long next;
+  private long limit;
+
+  @Autowired
+  public AccountNumberAllocator(JdbcTemplate jdbcTemplate) {
+    this(() -> jdbcTemplate.queryForObject("select nextval('account_number_seq')", Long.class));
+  }
+
+  // blockSource returns the first serial of a freshly reserved block
+  AccountNumberAllocator(LongSupplier blockSource) {
+    this.blockSource = blockSource;
+  }
+
+  public String nextAccountNumber() {
+    return AccountNumberGenerator.fromSerial(nextSerial());
+  }
+
+  private synchronized long nextSerial() {
+    if (next == limit) {
+      long start = blockSource.getAsLong();
+      next = start;
+      limit = Math.min(start + BLOCK_SIZE, AccountNumberGenerator.MAX_SERIAL + 1);
+    }
+    return next++;
+  }
+}
@@ -0,0 +1,89 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Bounded cache of PayStack /bank/resolve answers keyed by (account number, bank code).
+// "Invalid account" answers are cached too, for a shorter time, so retries of a mistyped
+// number do not go back to PayStack.
+@Component
+public class AccountResolutionCache {
+
+  public record Resolution(AccountInfo accountInfo, String invalidReason) {
+    public boolean isValid() {
+      return accountInfo != null;
+    }
+  }
+
+  private final Cache<String, Resolution> cache;
+
+  public AccountResolutionCache(MeterRegistry meterRegistry,
+                                @Value("${paystack.account-cache.max-size:10000}") long maxSize,
+                                @Value("${paystack.account-cache.ttl-ms:3600000}") long ttlMillis,
+                                @Value("${paystack.account-cache.negative-ttl-ms:300000}") long negativeTtlMillis) {
+    long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    long negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+    this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, Resolution>() {
+              @Override
+              public long expireAfterCreate(String key, Resolution value, long currentTime) {
+                return value.isValid() ? ttlNanos : negativeTtlNanos;
+              }
+
+              @Override
+              public long expireAfterUpdate(String key, Resolution value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+              }
+
+              @Override
+              public long expireAfterRead(String key, Resolution value, long currentTime, long currentDuration) {
+                return currentDuration;
+              }
+            })
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "paystack.account.resolutions");
+  }
+
+  public Resolution get(String accountNumber, String bankCode) {
+    return cache.getIfPresent(key(accountNumber, bankCode));
+  }
+
+  public void putResolved(String accountNumber, String bankCode, AccountInfo accountInfo) {
+    cache.put(key(accountNumber, bankCode), new Resolution(copy(accountInfo), null));
+  }
+
+  public void putInvalid(String accountNumber, String bankCode, String reason) {
+    cache.put(key(accountNumber, bankCode), new Resolution(null, reason));
+  }
+
+  public void invalidate(String accountNumber, String bankCode) {
+    cache.invalidate(key(accountNumber, bankCode));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  // AccountInfo is mutable, so callers always get their own copy
+  static AccountInfo copy(AccountInfo accountInfo) {
+    return AccountInfo.builder()
+            .accountName(accountInfo.getAccountName())
+            .accountNumber(accountInfo.getAccountNumber())
+            .bankCode(accountInfo.getBankCode())
+            .build();
+  }
+
+  private static String key(String accountNumber, String bankCode) {
+    return accountNumber + ':' + bankCode;
+  }
+}
@@ -1,34 +1,124 @@
 package com.wallet.hello_cash_wallet.service.impl;
 
+import com.wallet.hello_cash_wallet.payload.request.Bank;
+import com.wallet.hello_cash_wallet.service.PayStackService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+// Bank directory backed by PayStack's /bank list. Lookups read an immutable snapshot; a scheduled
+// refresh swaps in a new one and keeps serving the previous snapshot if PayStack cannot be reached.
 @Component
+@Slf4j
 public class BankService {
-  private final Map<String, String> bankNameToCodeMap;
+  private static final Map<String, String> SHORT_NAMES = Map.of(
+          "GTBank", "058",
+          "FirstBank", "011",
+          "ZenithBank", "057",
+          "FidelityBank", "070");
+  private static final List<String> SHORT_NAME_LIST = SHORT_NAMES.keySet().stream()
+          .sorted(String.CASE_INSENSITIVE_ORDER)
+          .toList();
 
-  public BankService() {
-    bankNameToCodeMap = new HashMap<>();
-    bankNameToCodeMap.put("GTBank", "058");
-    bankNameToCodeMap.put("FirstBank", "011");
-    bankNameToCodeMap.put("ZenithBank", "057");
-    bankNameToCodeMap.put("FidelityBank", "070");
+  private final PayStackService payStackService;
+  private volatile Directory directory;
 
-   }
+  public BankService(PayStackService payStackService) {
+    this.payStackService = payStackService;
+    this.directory = Directory.of(List.of());
+  }
+
+  @PostConstruct
+  public void load() {
+    refresh();
+  }
+
+  @Scheduled(fixedDelayString = "${paystack.banks.refresh-ms:21600000}",
+          initialDelayString = "${paystack.banks.refresh-ms:21600000}")
+  public void refresh() {
+    try {
+      List<Bank> banks = payStackService.getBanks();
+      if (banks == null || banks.isEmpty()) {
+        log.warn("PayStack returned an empty bank list, keeping {} cached banks", directory.names.size());
+        return;
+      }
+      directory = Directory.of(banks);
+      log.info("Bank directory refreshed with {} banks", directory.names.size());
+    } catch (Exception e) {
+      log.error("Bank directory refresh failed, keeping {} cached banks: {}", directory.names.size(), e.getMessage());
+    }
+  }
 
   public String getBankCode(String bankName) {
-    return bankNameToCodeMap.get(bankName);
+    return bankName == null ? null : directory.codeByName.get(normalize(bankName));
+  }
+
+  public String getBankName(String bankCode) {
+    return directory.nameByCode.get(bankCode);
   }
 
   public boolean isValidBankName(String bankName) {
-    return bankNameToCodeMap.containsKey(bankName);
+    return getBankCode(bankName) != null;
   }
 
-  public List<String> getBankNames() {
-    return new ArrayList<>(bankNameToCodeMap.keySet());
+  public boolean isValidBankCode(String bankCode) {
+    return bankCode != null && directory.nameByCode.containsKey(bankCode);
+  }
+
+  // The short names only: the full directory runs to a few kilobytes, which no SMS prompt can carry.
+  // Any name in the directory is still accepted by getBankCode.
+  public List<String> getShortNames() {
+    return SHORT_NAME_LIST;
+  }
+
+  private static String normalize(String bankName) {
+    StringBuilder key = new StringBuilder(bankName.length());
+    for (int i = 0; i < bankName.length(); i++) {
+      char c = bankName.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        key.append(Character.toLowerCase(c));
+      }
+    }
+    return key.toString();
+  }
+
+  private static final class Directory {
+    private final Map<String, String> codeByName;
+    private final Map<String, String> nameByCode;
+    private final List<String> names;
+
+    private Directory(Map<String, String> codeByName, Map<String, String> nameByCode, List<String> names) {
+      this.codeByName = codeByName;
+      this.nameByCode = nameByCode;
+      this.names = names;
+    }
+
+    // The short names users already type are always indexed, so they keep working alongside PayStack's names
+    static Directory of(List<Bank> banks) {
+      Map<String, String> codeByName = new HashMap<>();
+      Map<String, String> nameByCode = new LinkedHashMap<>();
+      SHORT_NAMES.forEach((name, code) -> {
+        codeByName.put(normalize(name), code);
+        nameByCode.put(code, name);
+      });
+      for (Bank bank : banks) {
+        if (bank.getCode() == null || bank.getName() == null) {
+          continue;
+        }
+        codeByName.putIfAbsent(normalize(bank.getName()), bank.getCode());
+        nameByCode.putIfAbsent(bank.getCode(), bank.getName());
+      }
+      List<String> names = new ArrayList<>(nameByCode.values());
+      names.sort(String.CASE_INSENSITIVE_ORDER);
+      return new Directory(codeByName, nameByCode, Collections.unmodifiableList(names));
+    }
   }
 }
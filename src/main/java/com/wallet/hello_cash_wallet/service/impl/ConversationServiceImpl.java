@@ -0,0 +1,426 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.config.ConversationSession;
+import com.wallet.hello_cash_wallet.config.ConversationSessionStore;
+import com.wallet.hello_cash_wallet.enums.Channel;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import com.wallet.hello_cash_wallet.exception.AccountNotFoundException;
+import com.wallet.hello_cash_wallet.exception.ServiceUnavailableException;
+import com.wallet.hello_cash_wallet.exception.UserIdNotFoundException;
+import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
+import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
+import com.wallet.hello_cash_wallet.payload.response.RegistrationResponse;
+import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
+import com.wallet.hello_cash_wallet.service.ConversationService;
+import com.wallet.hello_cash_wallet.service.PayStackService;
+import com.wallet.hello_cash_wallet.service.TransactionService;
+import com.wallet.hello_cash_wallet.service.UserEntityService;
+import com.wallet.hello_cash_wallet.service.WalletService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Menu conversations for every channel. Each flow is a table of states built once at startup: a state holds
+// its prompt, an allocation-free input check with a fixed reply for bad input, and a transition that records
+// the input and names the next state. The session step is the index of the state awaiting input.
+@Service
+@Slf4j
+public class ConversationServiceImpl implements ConversationService {
+
+  private static final String MENU = "Welcome! Please select an option:\n" +
+          "1. Register\n" +
+          "2. Transfer\n" +
+          "3. Buy Airtime\n" +
+          "4. Buy Data\n" +
+          "Send the option number (1, 2, 3, or 4) to proceed.";
+  private static final String BUSY = "We are busy right now. Please try again shortly.";
+  private static final String INVALID_SESSION = "Invalid session. Please start over by selecting an option.";
+  private static final String ACCOUNT_NOT_FOUND = "Account not found. Please check your details and try again.";
+  private static final String BANKS_UNAVAILABLE = "Bank transfers are temporarily unavailable. Please try again later.";
+  private static final String SOURCE_PROMPT = "Please enter the source account to be debited:";
+  private static final String INVALID_ACCOUNT = "Invalid account number. Please enter a 10-digit account number:";
+  private static final String INVALID_AMOUNT = "Invalid amount. Please enter an amount such as 1500 or 1500.50:";
+  private static final String INVALID_PIN = "Invalid PIN. Please enter a 4-digit PIN:";
+
+  // A finished conversation is parked on step 0 and removed from the store
+  private static final int DONE = 0;
+
+  private static final int REGISTRATION_NAME = 1;
+  private static final int REGISTRATION_DATE_OF_BIRTH = 2;
+  private static final int REGISTRATION_BVN = 3;
+  private static final int REGISTRATION_PHONE = 4;
+  private static final int REGISTRATION_PIN = 5;
+
+  private static final int TRANSFER_TYPE = 1;
+  private static final int TRANSFER_SOURCE = 2;
+  private static final int TRANSFER_DESTINATION = 3;
+  private static final int TRANSFER_BANK = 4;
+  private static final int TRANSFER_AMOUNT = 5;
+  private static final int TRANSFER_PIN = 6;
+
+  private static final int PURCHASE_PHONE = 1;
+  private static final int PURCHASE_SOURCE = 2;
+  private static final int PURCHASE_AMOUNT = 3;
+  private static final int PURCHASE_PIN = 4;
+
+  private final ConversationSessionStore sessionStore;
+  private final UserEntityService userEntityService;
+  private final TransactionService transactionService;
+  private final WalletService walletService;
+  private final PayStackService payStackService;
+  private final BankService bankService;
+
+  private final Flow registration;
+  private final Map<TransactionType, Flow> transactionFlows = new EnumMap<>(TransactionType.class);
+
+  public ConversationServiceImpl(ConversationSessionStore sessionStore, UserEntityService userEntityService,
+                                 TransactionService transactionService, WalletService walletService,
+                                 PayStackService payStackService, BankService bankService) {
+    this.sessionStore = sessionStore;
+    this.userEntityService = userEntityService;
+    this.transactionService = transactionService;
+    this.walletService = walletService;
+    this.payStackService = payStackService;
+    this.bankService = bankService;
+
+    this.registration = registrationFlow();
+    transactionFlows.put(TransactionType.TRANSFER, transferFlow());
+    transactionFlows.put(TransactionType.BUY_CARD, purchaseFlow("airtime"));
+    transactionFlows.put(TransactionType.BUY_DATA, purchaseFlow("data"));
+  }
+
+  @Override
+  public String menu() {
+    return MENU;
+  }
+
+  @Override
+  public String handle(Channel channel, String sessionId, String callerPhoneNumber, String input) {
+    switch (input) {
+      case "1":
+        return start(channel, sessionId, null);
+      case "2":
+        return start(channel, sessionId, TransactionType.TRANSFER);
+      case "3":
+        return start(channel, sessionId, TransactionType.BUY_CARD);
+      case "4":
+        return start(channel, sessionId, TransactionType.BUY_DATA);
+      default:
+        return advance(channel, sessionId, callerPhoneNumber, input);
+    }
+  }
+
+  @Override
+  public void end(Channel channel, String sessionId) {
+    sessionStore.remove(channel, sessionId);
+  }
+
+  private String start(Channel channel, String sessionId, TransactionType transactionType) {
+    ConversationSession conversation = sessionStore.open(channel, sessionId);
+    if (conversation == null) {
+      return BUSY;
+    }
+    if (transactionType == null) {
+      conversation.startRegistration();
+    } else {
+      conversation.startTransaction(transactionType);
+    }
+    return flowFor(conversation).states[1].prompt();
+  }
+
+  private String advance(Channel channel, String sessionId, String callerPhoneNumber, String input) {
+    ConversationSession conversation = sessionStore.get(channel, sessionId);
+    Flow flow = conversation == null ? null : flowFor(conversation);
+    int step = conversation == null ? DONE : conversation.getStep();
+    if (flow == null || step <= DONE || step >= flow.states.length) {
+      sessionStore.remove(channel, sessionId);
+      return INVALID_SESSION;
+    }
+
+    State state = flow.states[step];
+    if (state.check() != null && !state.check().test(input)) {
+      return state.invalidReply();
+    }
+    try {
+      String reply = state.transition().apply(conversation, callerPhoneNumber, input);
+      if (conversation.getStep() == DONE) {
+        sessionStore.remove(channel, sessionId);
+      }
+      return reply;
+    } catch (Exception e) {
+      log.error("Error processing {} step {}: {}", flow.name, step, e.getMessage());
+      return isAccountNotFound(e) ? ACCOUNT_NOT_FOUND : flow.errorReply;
+    }
+  }
+
+  private Flow flowFor(ConversationSession conversation) {
+    if (conversation.isRegistration()) {
+      return registration;
+    }
+    if (conversation.isTransaction()) {
+      TransactionType transactionType = conversation.getTransactionRequest().getTransactionType();
+      return transactionType == null ? null : transactionFlows.get(transactionType);
+    }
+    return null;
+  }
+
+  private Flow registrationFlow() {
+    State[] states = new State[REGISTRATION_PIN + 1];
+    states[REGISTRATION_NAME] = new State("Please enter your full name:",
+            ConversationServiceImpl::isName, "Invalid name format. Please enter your full name using letters only.",
+            (conversation, caller, input) -> {
+              conversation.getRegistrationRequest().setFullName(input);
+              return moveTo(conversation, states, REGISTRATION_DATE_OF_BIRTH);
+            });
+    states[REGISTRATION_DATE_OF_BIRTH] = new State("Please enter your date of birth (YYYY-MM-DD):",
+            null, null,
+            (conversation, caller, input) -> {
+              LocalDate dateOfBirth;
+              try {
+                dateOfBirth = LocalDate.parse(input);
+              } catch (DateTimeParseException e) {
+                dateOfBirth = null;
+              }
+              if (dateOfBirth == null || dateOfBirth.isAfter(LocalDate.now())) {
+                return "Invalid date format. Please enter your date of birth (YYYY-MM-DD):";
+              }
+              conversation.getRegistrationRequest().setDateOfBirth(dateOfBirth);
+              return moveTo(conversation, states, REGISTRATION_BVN);
+            });
+    states[REGISTRATION_BVN] = new State("Please enter your BVN:",
+            input -> isDigits(input, 11, 11), "Invalid BVN. Please enter an 11-digit BVN:",
+            (conversation, caller, input) -> {
+              conversation.getRegistrationRequest().setBvn(input);
+              return moveTo(conversation, states, REGISTRATION_PHONE);
+            });
+    states[REGISTRATION_PHONE] = new State("Please enter your phone number:",
+            input -> isDigits(input, 10, 15), "Invalid phone number. Please enter a valid phone number:",
+            (conversation, caller, input) -> {
+              conversation.getRegistrationRequest().setPhoneNumber(input);
+              return moveTo(conversation, states, REGISTRATION_PIN);
+            });
+    states[REGISTRATION_PIN] = new State("Please create Your HelloCash PIN:",
+            input -> isDigits(input, 4, 4), INVALID_PIN,
+            (conversation, caller, input) -> {
+              conversation.getRegistrationRequest().setPin(input);
+              RegistrationResponse response = userEntityService.createUser(conversation.getRegistrationRequest());
+              return finish(conversation, "User registered successfully!\n" +
+                      "Account Name: " + response.getFullName() + "\n" +
+                      "Account Number: " + response.getVirtualAccountNumber() + "\n" +
+                      "Balance: " + response.getBalance());
+            });
+    return new Flow("registration", "Error processing registration. Please try again.", states);
+  }
+
+  private Flow transferFlow() {
+    State[] states = new State[TRANSFER_PIN + 1];
+    states[TRANSFER_TYPE] = new State("Do you want to transfer to (A) HelloCash user or (B) Other bank? Please enter A or B:",
+            input -> input.equalsIgnoreCase("A") || input.equalsIgnoreCase("B"), "Invalid choice. Please enter A or B:",
+            (conversation, caller, input) -> {
+              TransactionRequest request = conversation.getTransactionRequest();
+              request.setTransferType(input.equalsIgnoreCase("A") ? TransferType.HELLOCASH : TransferType.OTHERS);
+              // Channels that know the caller debit the caller's own wallet
+              if (caller == null) {
+                return moveTo(conversation, states, TRANSFER_SOURCE);
+              }
+              request.setVirtualAccountNumber(userEntityService.getAccountNumberByPhoneNumber(caller));
+              return moveTo(conversation, states, TRANSFER_DESTINATION);
+            });
+    states[TRANSFER_SOURCE] = new State(SOURCE_PROMPT,
+            ConversationServiceImpl::isAccountNumber, INVALID_ACCOUNT,
+            (conversation, caller, input) -> {
+              conversation.getTransactionRequest().setVirtualAccountNumber(input);
+              return moveTo(conversation, states, TRANSFER_DESTINATION);
+            });
+    states[TRANSFER_DESTINATION] = new State("Please enter the destination account number:",
+            ConversationServiceImpl::isAccountNumber, INVALID_ACCOUNT,
+            (conversation, caller, input) -> {
+              TransactionRequest request = conversation.getTransactionRequest();
+              request.setDestinationAccount(input);
+              if (request.getTransferType() == TransferType.OTHERS) {
+                return moveTo(conversation, states, TRANSFER_BANK);
+              }
+              AccountInfo accountInfo = walletService.nameEnquiry(input);
+              request.setDestinationAccountName(accountInfo.getAccountName());
+              return "Destination Account Name: " + accountInfo.getAccountName() + "\n" +
+                      moveTo(conversation, states, TRANSFER_AMOUNT);
+            });
+    states[TRANSFER_BANK] = new State("Please enter the destination bank name:\n"
+            + String.join(",\n ", bankService.getShortNames()) + ",\n or the full name of another bank",
+            bankService::isValidBankName, "Invalid bank name. Please enter a valid bank name:",
+            (conversation, caller, input) -> {
+              TransactionRequest request = conversation.getTransactionRequest();
+              String bankCode = bankService.getBankCode(input);
+              request.setBankCode(bankCode);
+              AccountInfo accountInfo;
+              try {
+                accountInfo = payStackService.validateAccount(request.getDestinationAccount(), bankCode);
+              } catch (ServiceUnavailableException e) {
+                return BANKS_UNAVAILABLE;
+              } catch (Exception e) {
+                return "Account validation failed. Please try again.";
+              }
+              request.setDestinationAccountName(accountInfo.getAccountName());
+              return "Destination Account Name: " + accountInfo.getAccountName() + "\n" +
+                      moveTo(conversation, states, TRANSFER_AMOUNT);
+            });
+    states[TRANSFER_AMOUNT] = new State("Please enter the amount:",
+            ConversationServiceImpl::isAmount, INVALID_AMOUNT,
+            (conversation, caller, input) -> {
+              conversation.getTransactionRequest().setAmount(new BigDecimal(input));
+              return moveTo(conversation, states, TRANSFER_PIN);
+            });
+    states[TRANSFER_PIN] = new State("Please enter your HelloCash PIN:",
+            input -> isDigits(input, 4, 4), INVALID_PIN,
+            this::submitTransaction);
+    return new Flow("transfer", "Error processing transfer. Please try again.", states);
+  }
+
+  private Flow purchaseFlow(String product) {
+    State[] states = new State[PURCHASE_PIN + 1];
+    states[PURCHASE_PHONE] = new State("Please enter the phone number to buy " + product + " for:",
+            input -> isDigits(input, 10, 15), "Invalid phone number. Please enter a valid phone number:",
+            (conversation, caller, input) -> {
+              TransactionRequest request = conversation.getTransactionRequest();
+              request.setPhoneNumber(input);
+              if (caller == null) {
+                return moveTo(conversation, states, PURCHASE_SOURCE);
+              }
+              request.setVirtualAccountNumber(userEntityService.getAccountNumberByPhoneNumber(caller));
+              return moveTo(conversation, states, PURCHASE_AMOUNT);
+            });
+    states[PURCHASE_SOURCE] = new State(SOURCE_PROMPT,
+            ConversationServiceImpl::isAccountNumber, INVALID_ACCOUNT,
+            (conversation, caller, input) -> {
+              conversation.getTransactionRequest().setVirtualAccountNumber(input);
+              return moveTo(conversation, states, PURCHASE_AMOUNT);
+            });
+    states[PURCHASE_AMOUNT] = new State("Please enter the amount of " + product + " to buy:",
+            ConversationServiceImpl::isAmount, INVALID_AMOUNT,
+            (conversation, caller, input) -> {
+              conversation.getTransactionRequest().setAmount(new BigDecimal(input));
+              return moveTo(conversation, states, PURCHASE_PIN);
+            });
+    states[PURCHASE_PIN] = new State("Please enter your HelloCash PIN:",
+            input -> isDigits(input, 4, 4), INVALID_PIN,
+            this::submitTransaction);
+    return new Flow("buy " + product, "Error processing buy " + product + ". Please try again.", states);
+  }
+
+  private String submitTransaction(ConversationSession conversation, String caller, String input) {
+    TransactionRequest request = conversation.getTransactionRequest();
+    request.setPin(input);
+    TransactionsResponse response = transactionService.performTransaction(request);
+    if (response.getStatusCode() != 200) {
+      return finish(conversation, "Transaction failed: " + response.getMessage());
+    }
+    String reply = response.getMessage() + "\nAmount: " + response.getAmount();
+    if (response.getBalance() != null) {
+      reply += "\nBalance: " + response.getBalance();
+    }
+    return finish(conversation, reply);
+  }
+
+  private static String moveTo(ConversationSession conversation, State[] states, int step) {
+    conversation.setStep(step);
+    return states[step].prompt();
+  }
+
+  private static String finish(ConversationSession conversation, String reply) {
+    conversation.setStep(DONE);
+    return reply;
+  }
+
+  private static boolean isAccountNotFound(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof AccountNotFoundException || cause instanceof UserIdNotFoundException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isDigits(String input, int minLength, int maxLength) {
+    int length = input.length();
+    if (length < minLength || length > maxLength) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = input.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAccountNumber(String input) {
+    return isDigits(input, 10, 10);
+  }
+
+  private static boolean isName(String input) {
+    if (input.isBlank()) {
+      return false;
+    }
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == ' ')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Whole units with up to two decimal places, greater than zero
+  private static boolean isAmount(String input) {
+    int length = input.length();
+    int point = input.indexOf('.');
+    int wholeDigits = point < 0 ? length : point;
+    if (wholeDigits == 0 || (point >= 0 && (length - point - 1 < 1 || length - point - 1 > 2))) {
+      return false;
+    }
+    boolean nonZero = false;
+    for (int i = 0; i < length; i++) {
+      if (i == point) {
+        continue;
+      }
+      char c = input.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+      nonZero |= c != '0';
+    }
+    return nonZero;
+  }
+
+  @FunctionalInterface
+  private interface Check {
+    boolean test(String input);
+  }
+
+  @FunctionalInterface
+  private interface Transition {
+    String apply(ConversationSession conversation, String callerPhoneNumber, String input);
+  }
+
+  private record State(String prompt, Check check, String invalidReply, Transition transition) {
+  }
+
+  private static final class Flow {
+    private final String name;
+    private final String errorReply;
+    private final State[] states;
+
+    private Flow(String name, String errorReply, State[] states) {
+      this.name = name;
+      this.errorReply = errorReply;
+      this.states = states;
+    }
+  }
+}
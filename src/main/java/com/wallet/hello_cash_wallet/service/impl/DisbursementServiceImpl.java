@@ -0,0 +1,314 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.payload.request.DisbursementItem;
+import com.wallet.hello_cash_wallet.payload.request.DisbursementRequest;
+import com.wallet.hello_cash_wallet.payload.response.DisbursementResult;
+import com.wallet.hello_cash_wallet.payload.response.DisbursementSummary;
+import com.wallet.hello_cash_wallet.repository.WalletIdView;
+import com.wallet.hello_cash_wallet.repository.WalletOwnerView;
+import com.wallet.hello_cash_wallet.repository.WalletRepository;
+import com.wallet.hello_cash_wallet.service.DisbursementService;
+import com.wallet.hello_cash_wallet.service.LedgerService;
+import com.wallet.hello_cash_wallet.service.LimitsService;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Pays many HELLOCASH wallets from one source wallet. The PIN, the batch total and the source's TRANSFER limits are
+// checked once up front; the batch counts as one transfer of its total and each item is held to the per-transaction
+// maximum. Whatever is not paid out is handed back to the limits at the end.
+// Items are then applied in chunks, each in its own transaction that locks the source and the chunk's
+// destinations in id order (the same order single transfers use), rechecks the source balance for the chunk,
+// and journals every leg in one batched insert. A chunk the source can no longer cover is reported as
+// INSUFFICIENT_BALANCE and later chunks are not attempted.
+@Service
+@Slf4j
+public class DisbursementServiceImpl implements DisbursementService {
+
+  private static final String SUCCESS = "SUCCESS";
+  private static final String REJECTED = "REJECTED";
+  private static final String NOT_FOUND = "NOT_FOUND";
+  private static final String INSUFFICIENT_BALANCE = "INSUFFICIENT_BALANCE";
+
+  private final WalletRepository walletRepository;
+  private final LedgerService ledgerService;
+  private final SmsOutboxService smsOutboxService;
+  private final LimitsService limitsService;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+  private final int maxItems;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public DisbursementServiceImpl(WalletRepository walletRepository, LedgerService ledgerService,
+                                 SmsOutboxService smsOutboxService, LimitsService limitsService,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${disbursement.chunk-size:500}") int chunkSize,
+                                 @Value("${disbursement.max-items:10000}") int maxItems) {
+    this.walletRepository = walletRepository;
+    this.ledgerService = ledgerService;
+    this.smsOutboxService = smsOutboxService;
+    this.limitsService = limitsService;
+    this.transactionTemplate = transactionTemplate;
+    this.chunkSize = chunkSize;
+    this.maxItems = maxItems;
+  }
+
+  @Override
+  public DisbursementSummary disburse(DisbursementRequest request, Consumer<DisbursementResult> results) {
+    List<DisbursementItem> items = request.getItems();
+    if (items == null || items.isEmpty()) {
+      return rejected(400, "At least one item is required", 0);
+    }
+    if (items.size() > maxItems) {
+      return rejected(400, "At most " + maxItems + " items are allowed per disbursement", items.size());
+    }
+    WalletOwnerView owner = request.getSourceAccount() == null ? null
+            : walletRepository.findOwnerByVirtualAccountNumber(request.getSourceAccount());
+    if (owner == null) {
+      return rejected(404, "Source account not found", items.size());
+    }
+    if (request.getPin() == null || !request.getPin().equals(owner.getPin())) {
+      return rejected(400, "Invalid Pin", items.size());
+    }
+    Long sourceId = walletRepository.findIdByVirtualAccountNumber(request.getSourceAccount());
+
+    // Resolve every destination up front, one IN query per chunk of accounts
+    Map<String, Long> destinationIds = resolveDestinations(items);
+    List<Integer> payable = new ArrayList<>(items.size());
+    BigDecimal total = BigDecimal.ZERO;
+    BigDecimal largest = BigDecimal.ZERO;
+    int failed = 0;
+    for (int i = 0; i < items.size(); i++) {
+      DisbursementItem item = items.get(i);
+      String problem = validate(item, sourceId, destinationIds);
+      if (problem != null) {
+        boolean unknown = item != null && item.getDestinationAccount() != null
+                && !destinationIds.containsKey(item.getDestinationAccount());
+        results.accept(result(i, item, unknown ? NOT_FOUND : REJECTED, problem));
+        failed++;
+      } else {
+        payable.add(i);
+        total = total.add(item.getAmount());
+        largest = largest.max(item.getAmount());
+      }
+    }
+
+    BigDecimal balance = walletRepository.findById(sourceId).map(Wallet::getBalance).orElse(BigDecimal.ZERO);
+    entityManager.clear();
+    if (total.compareTo(balance) > 0) {
+      for (int index : payable) {
+        results.accept(result(index, items.get(index), INSUFFICIENT_BALANCE, "Balance does not cover the disbursement total"));
+      }
+      return DisbursementSummary.builder()
+              .statusCode(200)
+              .message("Insufficient balance")
+              .total(items.size())
+              .succeeded(0)
+              .failed(items.size())
+              .amountDisbursed(BigDecimal.ZERO)
+              .balance(balance)
+              .build();
+    }
+    LocalDateTime acquiredAt = LocalDateTime.now();
+    String refusal = payable.isEmpty() ? null
+            : limitsService.tryAcquireBatch(sourceId, TransactionType.TRANSFER, largest, total);
+    if (refusal != null) {
+      for (int index : payable) {
+        results.accept(result(index, items.get(index), REJECTED, refusal));
+      }
+      return DisbursementSummary.builder()
+              .statusCode(400)
+              .message(refusal)
+              .total(items.size())
+              .succeeded(0)
+              .failed(items.size())
+              .amountDisbursed(BigDecimal.ZERO)
+              .balance(balance)
+              .build();
+    }
+
+    String description = request.getReference() == null ? "Bulk disbursement" : "Bulk disbursement " + request.getReference();
+    int succeeded = 0;
+    BigDecimal disbursed = BigDecimal.ZERO;
+    boolean exhausted = false;
+    try {
+      for (int start = 0; start < payable.size(); start += chunkSize) {
+        List<Integer> chunk = payable.subList(start, Math.min(start + chunkSize, payable.size()));
+        if (exhausted) {
+          for (int index : chunk) {
+            results.accept(result(index, items.get(index), INSUFFICIENT_BALANCE, "Insufficient balance"));
+          }
+          failed += chunk.size();
+          continue;
+        }
+        ChunkOutcome outcome = applyChunk(sourceId, items, chunk, destinationIds, description);
+        entityManager.clear();
+        balance = outcome.balance();
+        if (outcome.transferIds() == null) {
+          exhausted = true;
+          for (int index : chunk) {
+            results.accept(result(index, items.get(index), INSUFFICIENT_BALANCE, "Insufficient balance"));
+          }
+          failed += chunk.size();
+          continue;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+          int index = chunk.get(i);
+          DisbursementItem item = items.get(index);
+          results.accept(DisbursementResult.builder()
+                  .index(index)
+                  .destinationAccount(item.getDestinationAccount())
+                  .amount(item.getAmount())
+                  .status(SUCCESS)
+                  .transferId(outcome.transferIds().get(i))
+                  .build());
+          disbursed = disbursed.add(item.getAmount());
+        }
+        succeeded += chunk.size();
+      }
+    } finally {
+      // A batch that only partly went through also hands back its count, so it may be under-counted for the minute
+      if (!payable.isEmpty() && disbursed.compareTo(total) < 0) {
+        limitsService.release(sourceId, TransactionType.TRANSFER, total.subtract(disbursed), acquiredAt);
+      }
+    }
+
+    if (succeeded > 0) {
+      smsOutboxService.queueSms(owner.getPhoneNumber(), "Disbursement completed!\n" +
+              "Payments: " + succeeded + " of " + items.size() + "\n" +
+              "Amount: " + disbursed + "\n" +
+              "Balance: " + balance);
+    }
+    log.info("Disbursement from {}: {} paid, {} failed, {} disbursed", request.getSourceAccount(), succeeded, failed, disbursed);
+    return DisbursementSummary.builder()
+            .statusCode(200)
+            .message(failed == 0 ? "Disbursement successful" : "Disbursement completed with failures")
+            .total(items.size())
+            .succeeded(succeeded)
+            .failed(failed)
+            .amountDisbursed(disbursed)
+            .balance(balance)
+            .build();
+  }
+
+  // transferIds is null when the source cannot cover the chunk, in which case nothing was written
+  private ChunkOutcome applyChunk(Long sourceId, List<DisbursementItem> items, List<Integer> chunk,
+                                  Map<String, Long> destinationIds, String description) {
+    return transactionTemplate.execute(status -> {
+      Set<Long> ids = new LinkedHashSet<>(chunk.size() + 1);
+      ids.add(sourceId);
+      BigDecimal chunkTotal = BigDecimal.ZERO;
+      for (int index : chunk) {
+        DisbursementItem item = items.get(index);
+        ids.add(destinationIds.get(item.getDestinationAccount()));
+        chunkTotal = chunkTotal.add(item.getAmount());
+      }
+      Map<Long, Wallet> wallets = new HashMap<>(ids.size() * 2);
+      for (Wallet wallet : walletRepository.findAllByIdForUpdate(ids)) {
+        wallets.put(wallet.getId(), wallet);
+      }
+      Wallet source = wallets.get(sourceId);
+      if (chunkTotal.compareTo(source.getBalance()) > 0) {
+        return new ChunkOutcome(null, source.getBalance());
+      }
+
+      List<Wallet> destinations = new ArrayList<>(chunk.size());
+      List<BigDecimal> amounts = new ArrayList<>(chunk.size());
+      for (int index : chunk) {
+        DisbursementItem item = items.get(index);
+        destinations.add(wallets.get(destinationIds.get(item.getDestinationAccount())));
+        amounts.add(item.getAmount());
+      }
+      List<String> transferIds = ledgerService.postDisbursement(source, destinations, amounts, description);
+      // Flush the wallet updates as one batch before commit
+      entityManager.flush();
+      return new ChunkOutcome(transferIds, source.getBalance());
+    });
+  }
+
+  private Map<String, Long> resolveDestinations(List<DisbursementItem> items) {
+    Set<String> accounts = new LinkedHashSet<>();
+    for (DisbursementItem item : items) {
+      if (item != null && item.getDestinationAccount() != null) {
+        accounts.add(item.getDestinationAccount());
+      }
+    }
+    Map<String, Long> ids = new HashMap<>(accounts.size() * 2);
+    List<String> batch = new ArrayList<>(chunkSize);
+    for (String account : accounts) {
+      batch.add(account);
+      if (batch.size() == chunkSize) {
+        collectIds(batch, ids);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      collectIds(batch, ids);
+    }
+    return ids;
+  }
+
+  private void collectIds(List<String> accounts, Map<String, Long> ids) {
+    for (WalletIdView wallet : walletRepository.findIdsByVirtualAccountNumbers(accounts)) {
+      ids.put(wallet.getVirtualAccountNumber(), wallet.getId());
+    }
+  }
+
+  private static String validate(DisbursementItem item, Long sourceId, Map<String, Long> destinationIds) {
+    if (item == null || item.getDestinationAccount() == null) {
+      return "Destination account is required";
+    }
+    Long destinationId = destinationIds.get(item.getDestinationAccount());
+    if (destinationId == null) {
+      return "Destination account not found";
+    }
+    if (destinationId.equals(sourceId)) {
+      return "Source and destination accounts must be different";
+    }
+    if (item.getAmount() == null || item.getAmount().signum() <= 0 || item.getAmount().scale() > 2) {
+      return "Amount must be greater than zero with at most two decimal places";
+    }
+    return null;
+  }
+
+  private static DisbursementResult result(int index, DisbursementItem item, String status, String message) {
+    return DisbursementResult.builder()
+            .index(index)
+            .destinationAccount(item == null ? null : item.getDestinationAccount())
+            .amount(item == null ? null : item.getAmount())
+            .status(status)
+            .message(message)
+            .build();
+  }
+
+  private static DisbursementSummary rejected(int statusCode, String message, int total) {
+    return DisbursementSummary.builder()
+            .statusCode(statusCode)
+            .message(message)
+            .total(total)
+            .succeeded(0)
+            .failed(total)
+            .build();
+  }
+
+  private record ChunkOutcome(List<String> transferIds, BigDecimal balance) {
+  }
+}
@@ -0,0 +1,326 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.exception.ServiceUnavailableException;
+import com.wallet.hello_cash_wallet.payload.request.PayoutInstruction;
+import com.wallet.hello_cash_wallet.payload.response.PayoutResult;
+import com.wallet.hello_cash_wallet.repository.WalletRepository;
+import com.wallet.hello_cash_wallet.service.LedgerService;
+import com.wallet.hello_cash_wallet.service.LimitsService;
+import com.wallet.hello_cash_wallet.service.PayStackService;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Pushes PENDING interbank debits to the payout provider in batches. No database transaction is held across a
+// provider call:
+//   1. a short transaction claims a batch with SKIP LOCKED and marks it SUBMITTING; updated_at is the lease
+//   2. the batch goes to the provider outside any transaction
+//   3. a second short transaction records the answers on the rows that still hold this lease
+// Completed transfers become SUCCESS; failed ones become FAILED and the wallet is credited back. Transfers the
+// provider is still working on (pending, queued, otp, ...) become SUBMITTED and are verified by reference once they
+// are settlement.verify-after-ms old, then again every time that passes until they complete or fail.
+// A batch the breaker refused never left, so it goes straight back to PENDING. After any other failure the provider
+// may or may not have the batch, so it stays SUBMITTING. Once the lease expires, each entry is verified: a known
+// transfer takes the provider's answer and an unknown one is put back to PENDING to be sent again. A SUBMITTED
+// transfer the provider no longer knows is retried until it is settlement.unknown-give-up-ms old, then failed and
+// reversed like a rejected one and counted in settlement.payouts.abandoned.
+@Component
+@Slf4j
+public class InterbankSettlementWorker {
+
+  private static final String SELECT_PAYOUTS = "select t.id, t.created_at, t.transfer_id, t.account_id, t.amount, " +
+          "t.transaction_type, t.counterparty_account, t.counterparty_bank_code, t.counterparty_name, u.phone_number " +
+          "from transactions t join wallet w on w.id = t.account_id join users u on u.id = w.user_id " +
+          "where t.transfer_type = 'OTHERS' and t.entry_type = 'DEBIT' ";
+
+  private static final String CLAIM_PENDING = SELECT_PAYOUTS +
+          "and t.transaction_status = 'PENDING' order by t.id limit ? for update of t skip locked";
+
+  private static final String CLAIM_EXPIRED = SELECT_PAYOUTS +
+          "and t.transaction_status = 'SUBMITTING' and t.updated_at < ? order by t.id limit ? for update of t skip locked";
+
+  private static final String CLAIM_SUBMITTED = SELECT_PAYOUTS +
+          "and t.transaction_status = 'SUBMITTED' and t.updated_at < ? order by t.id limit ? for update of t skip locked";
+
+  private static final String LEASE = "update transactions set transaction_status = ?, updated_at = ? " +
+          "where id = ? and created_at = ?";
+
+  // Only rows still holding the lease taken at claim time move, so each entry is resolved, and reversed, once
+  private static final String RESOLVE = "update transactions set transaction_status = ?, " +
+          "provider_reference = coalesce(?, provider_reference), updated_at = ? " +
+          "where id = ? and created_at = ? and transaction_status = ? and updated_at = ?";
+
+  private static final RowMapper<PendingPayout> PAYOUT = (rs, rowNum) -> new PendingPayout(
+          rs.getLong("id"), rs.getTimestamp("created_at"), rs.getString("transfer_id"), rs.getLong("account_id"),
+          rs.getBigDecimal("amount"), transactionType(rs.getString("transaction_type")),
+          rs.getString("counterparty_account"), rs.getString("counterparty_bank_code"), rs.getString("counterparty_name"),
+          rs.getString("phone_number"));
+
+  private record PendingPayout(Long entryId, Timestamp createdAt, String transferId, Long walletId, BigDecimal amount,
+                               TransactionType transactionType, String accountNumber, String bankCode,
+                               String accountName, String phoneNumber) {
+  }
+
+  private record Batch(List<PendingPayout> payouts, TransactionStatus leasedAs, Timestamp lease) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final PayStackService payStackService;
+  private final LedgerService ledgerService;
+  private final WalletRepository walletRepository;
+  private final SmsOutboxService smsOutboxService;
+  private final LimitsService limitsService;
+  private final ExecutorService workers;
+  private final int workerCount;
+  private final int batchSize;
+  private final long leaseMillis;
+  private final long verifyAfterMillis;
+  private final long unknownGiveUpMillis;
+  private final Counter abandoned;
+
+  public InterbankSettlementWorker(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   PayStackService payStackService, LedgerService ledgerService,
+                                   WalletRepository walletRepository, SmsOutboxService smsOutboxService,
+                                   LimitsService limitsService, MeterRegistry meterRegistry,
+                                   @Value("${settlement.workers:2}") int workerCount,
+                                   @Value("${settlement.batch-size:100}") int batchSize,
+                                   @Value("${settlement.lease-ms:300000}") long leaseMillis,
+                                   @Value("${settlement.verify-after-ms:60000}") long verifyAfterMillis,
+                                   @Value("${settlement.unknown-give-up-ms:86400000}") long unknownGiveUpMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.payStackService = payStackService;
+    this.ledgerService = ledgerService;
+    this.walletRepository = walletRepository;
+    this.smsOutboxService = smsOutboxService;
+    this.limitsService = limitsService;
+    this.workers = Executors.newFixedThreadPool(workerCount);
+    this.workerCount = workerCount;
+    this.batchSize = batchSize;
+    this.leaseMillis = leaseMillis;
+    this.verifyAfterMillis = verifyAfterMillis;
+    this.unknownGiveUpMillis = unknownGiveUpMillis;
+    this.abandoned = meterRegistry.counter("settlement.payouts.abandoned");
+  }
+
+  @Scheduled(fixedDelayString = "${settlement.poll-ms:2000}")
+  public void settle() {
+    List<CompletableFuture<Void>> runs = new ArrayList<>(workerCount);
+    for (int i = 0; i < workerCount; i++) {
+      runs.add(CompletableFuture.runAsync(this::drain, workers));
+    }
+    CompletableFuture.allOf(runs.toArray(new CompletableFuture[0])).join();
+  }
+
+  private void drain() {
+    try {
+      // Keep going while full batches are submitted; a failed submission waits for the next poll
+      int submitted;
+      do {
+        submitted = submitBatch();
+      } while (submitted == batchSize);
+      verifyBatch(CLAIM_EXPIRED, TransactionStatus.SUBMITTING, leaseMillis);
+      verifyBatch(CLAIM_SUBMITTED, TransactionStatus.SUBMITTED, verifyAfterMillis);
+    } catch (Exception e) {
+      log.error("Interbank settlement run failed: {}", e.getMessage(), e);
+    }
+  }
+
+  private int submitBatch() {
+    Batch batch = claim(CLAIM_PENDING, TransactionStatus.SUBMITTING, batchSize);
+    if (batch.payouts().isEmpty()) {
+      return 0;
+    }
+    List<PayoutResult> results;
+    try {
+      results = payStackService.payout(instructions(batch.payouts()));
+    } catch (ServiceUnavailableException e) {
+      Set<String> unsent = new HashSet<>();
+      batch.payouts().forEach(payout -> unsent.add(payout.transferId()));
+      resolve(batch, Map.of(), unsent);
+      log.warn("Interbank payout batch not sent, {} entries back to PENDING: {}", unsent.size(), e.getMessage());
+      return 0;
+    } catch (Exception e) {
+      log.error("Interbank payout batch failed, {} entries stay SUBMITTING until verified: {}",
+              batch.payouts().size(), e.getMessage());
+      return 0;
+    }
+    Map<String, PayoutResult> answers = new HashMap<>();
+    for (PayoutResult result : results) {
+      answers.put(result.getReference(), result);
+    }
+    resolve(batch, answers, Set.of());
+    return batch.payouts().size();
+  }
+
+  // SUBMITTING entries past their lease (a worker crashed or the provider call failed mid-flight) and SUBMITTED
+  // entries the provider has not finished. The claim renews the lease under the same status while they are verified.
+  private void verifyBatch(String sql, TransactionStatus leaseAs, long ageMillis) {
+    Timestamp olderThan = Timestamp.valueOf(LocalDateTime.now().minus(ageMillis, ChronoUnit.MILLIS));
+    Batch batch = claim(sql, leaseAs, olderThan, batchSize);
+    if (batch.payouts().isEmpty()) {
+      return;
+    }
+    Map<String, PayoutResult> answers = new HashMap<>();
+    Set<String> unknown = new HashSet<>();
+    LocalDateTime giveUpBefore = LocalDateTime.now().minus(unknownGiveUpMillis, ChronoUnit.MILLIS);
+    for (PendingPayout payout : batch.payouts()) {
+      try {
+        PayoutResult result = payStackService.verify(payout.transferId());
+        if (result == null) {
+          // Only a transfer that may never have been sent can be sent again
+          if (leaseAs == TransactionStatus.SUBMITTING) {
+            unknown.add(payout.transferId());
+          } else if (payout.createdAt().toLocalDateTime().isBefore(giveUpBefore)) {
+            log.error("Submitted payout {} is still unknown to the provider, failing it", payout.transferId());
+            answers.put(payout.transferId(), PayoutResult.builder()
+                    .reference(payout.transferId())
+                    .status(TransactionStatus.FAILED)
+                    .message("Unknown to the provider")
+                    .build());
+            abandoned.increment();
+          } else {
+            log.warn("Submitted payout {} is unknown to the provider", payout.transferId());
+          }
+        } else {
+          answers.put(payout.transferId(), result);
+        }
+      } catch (Exception e) {
+        // The rest of the batch keeps its new lease and is verified again when it expires
+        log.warn("Could not verify payout {}: {}", payout.transferId(), e.getMessage());
+        break;
+      }
+    }
+    resolve(batch, answers, unknown);
+  }
+
+  private Batch claim(String sql, TransactionStatus leaseAs, Object... parameters) {
+    return transactionTemplate.execute(status -> {
+      Timestamp lease = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+      List<PendingPayout> payouts = jdbcTemplate.query(sql, PAYOUT, parameters);
+      List<Object[]> rows = new ArrayList<>(payouts.size());
+      for (PendingPayout payout : payouts) {
+        rows.add(new Object[]{leaseAs.name(), lease, payout.entryId(), payout.createdAt()});
+      }
+      jdbcTemplate.batchUpdate(LEASE, rows);
+      return new Batch(payouts, leaseAs, lease);
+    });
+  }
+
+  // Entries with neither an answer nor a place in backToPending keep their lease
+  private void resolve(Batch batch, Map<String, PayoutResult> answers, Set<String> backToPending) {
+    transactionTemplate.executeWithoutResult(status -> {
+      Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+      List<PendingPayout> resolved = new ArrayList<>(batch.payouts().size());
+      List<TransactionStatus> targets = new ArrayList<>(batch.payouts().size());
+      List<Object[]> rows = new ArrayList<>(batch.payouts().size());
+      for (PendingPayout payout : batch.payouts()) {
+        PayoutResult result = answers.get(payout.transferId());
+        TransactionStatus target;
+        if (result != null) {
+          target = result.getStatus();
+          if (target == TransactionStatus.FAILED) {
+            log.warn("Payout {} rejected by provider: {}", payout.transferId(), result.getMessage());
+          }
+        } else if (backToPending.contains(payout.transferId())) {
+          target = TransactionStatus.PENDING;
+        } else {
+          continue;
+        }
+        resolved.add(payout);
+        targets.add(target);
+        rows.add(new Object[]{target.name(), result == null ? null : result.getTransferCode(), now,
+                payout.entryId(), payout.createdAt(), batch.leasedAs().name(), batch.lease()});
+      }
+      int[] counts = jdbcTemplate.batchUpdate(RESOLVE, rows);
+
+      Map<TransactionStatus, Integer> moved = new HashMap<>();
+      List<PendingPayout> failed = new ArrayList<>();
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          moved.merge(targets.get(i), 1, Integer::sum);
+          if (targets.get(i) == TransactionStatus.FAILED) {
+            failed.add(resolved.get(i));
+          }
+        }
+      }
+      reverse(failed);
+      log.info("Interbank settlement: {} of {} entries resolved {}", rows.size(), batch.payouts().size(), moved);
+    });
+  }
+
+  private static List<PayoutInstruction> instructions(List<PendingPayout> payouts) {
+    List<PayoutInstruction> instructions = new ArrayList<>(payouts.size());
+    for (PendingPayout payout : payouts) {
+      instructions.add(PayoutInstruction.builder()
+              .reference(payout.transferId())
+              .accountNumber(payout.accountNumber())
+              .bankCode(payout.bankCode())
+              .accountName(payout.accountName())
+              .amount(payout.amount())
+              .reason("HelloCash transfer")
+              .build());
+    }
+    return instructions;
+  }
+
+  // Runs inside resolve's transaction, only for entries that this worker moved to FAILED. The spend the transfer
+  // acquired is handed back to the wallet's limits as well.
+  private void reverse(List<PendingPayout> failed) {
+    if (failed.isEmpty()) {
+      return;
+    }
+    List<Long> walletIds = failed.stream().map(PendingPayout::walletId).distinct().toList();
+    Map<Long, Wallet> wallets = new HashMap<>();
+    for (Wallet wallet : walletRepository.findAllByIdForUpdate(walletIds)) {
+      wallets.put(wallet.getId(), wallet);
+    }
+
+    for (PendingPayout payout : failed) {
+      Wallet wallet = wallets.get(payout.walletId());
+      wallet.credit(payout.amount());
+      ledgerService.postReversal(wallet, payout.transferId(), payout.accountNumber(), payout.amount());
+      limitsService.release(payout.walletId(), payout.transactionType(), payout.amount(),
+              payout.createdAt().toLocalDateTime());
+      smsOutboxService.queueSms(payout.phoneNumber(), "Your transfer of " + payout.amount() + " to "
+              + payout.accountName() + " could not be completed and has been reversed.\nBalance: " + wallet.getBalance());
+    }
+  }
+
+  private static TransactionType transactionType(String name) {
+    return name == null ? null : TransactionType.valueOf(name);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    workers.shutdown();
+    workers.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
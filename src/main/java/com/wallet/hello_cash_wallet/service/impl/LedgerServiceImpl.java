@@ -0,0 +1,139 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.entities.Transaction;
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.enums.EntryType;
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import com.wallet.hello_cash_wallet.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+
+  private static final String INSERT_ENTRY = "insert into transactions (id, transfer_id, account_id, entry_type, " +
+          "transaction_type, transfer_type, transaction_status, amount, balance_after, counterparty_account, " +
+          "counterparty_bank_code, counterparty_name, description, created_at, updated_at) " +
+          "values (nextval('transaction_entry_seq'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public LedgerServiceImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public String postTransfer(Wallet source, Wallet destination, BigDecimal amount, TransactionType transactionType) {
+    String transferId = UUID.randomUUID().toString();
+    post(List.of(
+            entry(transferId, source, EntryType.DEBIT, destination.getVirtualAccountNumber(), amount,
+                    transactionType, TransferType.HELLOCASH, TransactionStatus.SUCCESS),
+            entry(transferId, destination, EntryType.CREDIT, source.getVirtualAccountNumber(), amount,
+                    transactionType, TransferType.HELLOCASH, TransactionStatus.SUCCESS)));
+    return transferId;
+  }
+
+  // Applies each payment to the locked wallets in order so every leg records its running balance, then journals
+  // the whole chunk in one batched insert
+  @Override
+  public List<String> postDisbursement(Wallet source, List<Wallet> destinations, List<BigDecimal> amounts, String description) {
+    List<String> transferIds = new ArrayList<>(destinations.size());
+    List<Transaction> entries = new ArrayList<>(destinations.size() * 2);
+    for (int i = 0; i < destinations.size(); i++) {
+      Wallet destination = destinations.get(i);
+      BigDecimal amount = amounts.get(i);
+      String transferId = UUID.randomUUID().toString();
+      source.debit(amount);
+      destination.credit(amount);
+      Transaction debit = entry(transferId, source, EntryType.DEBIT, destination.getVirtualAccountNumber(), amount,
+              TransactionType.TRANSFER, TransferType.HELLOCASH, TransactionStatus.SUCCESS);
+      Transaction credit = entry(transferId, destination, EntryType.CREDIT, source.getVirtualAccountNumber(), amount,
+              TransactionType.TRANSFER, TransferType.HELLOCASH, TransactionStatus.SUCCESS);
+      debit.setDescription(description);
+      credit.setDescription(description);
+      entries.add(debit);
+      entries.add(credit);
+      transferIds.add(transferId);
+    }
+    post(entries);
+    return transferIds;
+  }
+
+  // The debit stays PENDING until InterbankSettlementWorker has handed it to the payout provider
+  @Override
+  public String postInterbankDebit(Wallet source, String destinationAccount, String bankCode, String destinationAccountName,
+                                   BigDecimal amount, TransactionType transactionType) {
+    String transferId = UUID.randomUUID().toString();
+    Transaction debit = entry(transferId, source, EntryType.DEBIT, destinationAccount, amount,
+            transactionType, TransferType.OTHERS, TransactionStatus.PENDING);
+    debit.setCounterpartyBankCode(bankCode);
+    debit.setCounterpartyName(destinationAccountName);
+    post(List.of(debit));
+    return transferId;
+  }
+
+  @Override
+  public void postReversal(Wallet wallet, String transferId, String counterpartyAccount, BigDecimal amount) {
+    Transaction reversal = entry(transferId, wallet, EntryType.CREDIT, counterpartyAccount, amount,
+            TransactionType.TRANSFER, TransferType.OTHERS, TransactionStatus.SUCCESS);
+    reversal.setDescription("Reversal of failed interbank transfer");
+    post(List.of(reversal));
+  }
+
+  @Override
+  public void post(List<Transaction> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    List<Object[]> rows = new ArrayList<>(entries.size());
+    for (Transaction entry : entries) {
+      rows.add(new Object[]{
+              entry.getTransferId(),
+              entry.getVirtualAccountNumber().getId(),
+              entry.getEntryType().name(),
+              entry.getTransactionType().name(),
+              entry.getTransferType() != null ? entry.getTransferType().name() : null,
+              entry.getTransactionStatus().name(),
+              entry.getAmount(),
+              entry.getBalanceAfter(),
+              entry.getCounterpartyAccount(),
+              entry.getCounterpartyBankCode(),
+              entry.getCounterpartyName(),
+              entry.getDescription(),
+              now,
+              now
+      });
+    }
+    // With reWriteBatchedInserts on the datasource this is a single multi-row insert
+    jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+    log.debug("Posted {} journal entries for transfer {}", entries.size(), entries.get(0).getTransferId());
+  }
+
+  private Transaction entry(String transferId, Wallet wallet, EntryType entryType, String counterpartyAccount,
+                            BigDecimal amount, TransactionType transactionType, TransferType transferType,
+                            TransactionStatus status) {
+    return Transaction.builder()
+            .transferId(transferId)
+            .virtualAccountNumber(wallet)
+            .entryType(entryType)
+            .counterpartyAccount(counterpartyAccount)
+            .amount(amount)
+            .balanceAfter(wallet.getBalance())
+            .transactionType(transactionType)
+            .transferType(transferType)
+            .transactionStatus(status)
+            .build();
+  }
+}
@@ -0,0 +1,181 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.service.LimitsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Per-wallet limits for each TransactionType, configured as limits.<type>.per-transaction-max, limits.<type>.daily-max
+// and limits.<type>.per-minute (transfer, buy-card, buy-data, ...; 0 or absent means unlimited). Spend and counts live
+// in WalletLimits, so a check never touches the database. The windows are rebuilt from the journal's debits at startup
+// and only cover this instance's traffic after that. A bulk disbursement is one transaction of its total, so its debit
+// rows count towards spend but are left out of the rebuilt per-minute counts.
+// Times are the journal's local wall clock read as UTC epoch seconds, so rebuilt and live entries share one timeline.
+@Service
+@Slf4j
+public class LimitsServiceImpl implements LimitsService {
+
+  private static final int SEGMENTS = 64;
+  private static final int SEGMENT_CAPACITY = 256;
+
+  private static final String DEBITS = " from transactions where entry_type = 'DEBIT' and transaction_status <> 'FAILED'" +
+          " and transaction_type is not null and created_at >= ?";
+  private static final String HOURLY = "select account_id, transaction_type, date_trunc('hour', created_at) as hour, " +
+          "sum(amount) as amount" + DEBITS + " group by account_id, transaction_type, date_trunc('hour', created_at)";
+  private static final String RECENT = "select account_id, transaction_type, created_at" + DEBITS +
+          " and (description is null or description not like 'Bulk disbursement%')";
+
+  private static final Map<TransactionType, String[]> DEFAULTS = Map.of(
+          TransactionType.TRANSFER, new String[]{"1000000", "5000000", "10"},
+          TransactionType.BUY_CARD, new String[]{"50000", "200000", "5"},
+          TransactionType.BUY_DATA, new String[]{"50000", "200000", "5"});
+
+  private final JdbcTemplate jdbcTemplate;
+  private final MeterRegistry meterRegistry;
+  private final Map<TransactionType, Limits> limits = new EnumMap<>(TransactionType.class);
+  private final WalletLimits windows = new WalletLimits(SEGMENTS, SEGMENT_CAPACITY);
+
+  public LimitsServiceImpl(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, Environment environment) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.meterRegistry = meterRegistry;
+    for (TransactionType type : TransactionType.values()) {
+      String prefix = "limits." + type.name().toLowerCase(Locale.ROOT).replace('_', '-') + ".";
+      String[] defaults = DEFAULTS.getOrDefault(type, new String[]{"0", "0", "0"});
+      Limits configured = new Limits(
+              new BigDecimal(environment.getProperty(prefix + "per-transaction-max", defaults[0])),
+              new BigDecimal(environment.getProperty(prefix + "daily-max", defaults[1])),
+              Integer.parseInt(environment.getProperty(prefix + "per-minute", defaults[2])));
+      limits.put(type, configured);
+      log.info("{} limits: per transaction {}, daily {}, per minute {}", type,
+              configured.perTransactionMax(), configured.dailyMax(), configured.perMinute());
+    }
+  }
+
+  @PostConstruct
+  public void rebuild() {
+    try {
+      windows.clear();
+      LocalDateTime now = LocalDateTime.now();
+      LocalDateTime dayStart = now.truncatedTo(ChronoUnit.HOURS).minusHours(WalletLimits.HOURS - 1);
+      LocalDateTime minuteStart = now.minusSeconds((long) WalletLimits.COUNT_BUCKETS * WalletLimits.COUNT_BUCKET_SECONDS);
+      // Spend comes from hourly sums; counts only need the last minute, which is read row by row
+      jdbcTemplate.query(HOURLY, rs -> {
+        TransactionType type = type(rs.getString("transaction_type"));
+        if (type != null && limits.get(type).dailyMax().signum() > 0) {
+          windows.record(WalletLimits.key(rs.getLong("account_id"), type.ordinal()),
+                  minor(rs.getBigDecimal("amount")), 0, seconds(rs.getTimestamp("hour")));
+        }
+      }, Timestamp.valueOf(dayStart));
+      jdbcTemplate.query(RECENT, rs -> {
+        TransactionType type = type(rs.getString("transaction_type"));
+        if (type != null && limits.get(type).perMinute() > 0) {
+          windows.record(WalletLimits.key(rs.getLong("account_id"), type.ordinal()),
+                  0, 1, seconds(rs.getTimestamp("created_at")));
+        }
+      }, Timestamp.valueOf(minuteStart));
+      log.info("Rebuilt limit windows for {} wallet and transaction type pairs", windows.size());
+    } catch (Exception e) {
+      log.error("Rebuilding limit windows failed, starting from empty windows: {}", e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public String tryAcquire(long walletId, TransactionType transactionType, BigDecimal amount) {
+    return tryAcquireBatch(walletId, transactionType, amount, amount);
+  }
+
+  @Override
+  public String tryAcquireBatch(long walletId, TransactionType transactionType, BigDecimal largest, BigDecimal total) {
+    Limits limit = transactionType == null ? null : limits.get(transactionType);
+    if (limit == null || largest == null || total == null) {
+      return null;
+    }
+    if (limit.perTransactionMax().signum() > 0 && largest.compareTo(limit.perTransactionMax()) > 0) {
+      return refused(transactionType, "per_transaction",
+              "Amount exceeds the limit of " + limit.perTransactionMax().toPlainString() + " per transaction");
+    }
+    if (!limit.windowed()) {
+      return null;
+    }
+    WalletLimits.Outcome outcome = windows.tryAcquire(WalletLimits.key(walletId, transactionType.ordinal()),
+            minor(total), minor(limit.dailyMax()), limit.perMinute(), now());
+    switch (outcome) {
+      case DAILY_LIMIT:
+        return refused(transactionType, "daily",
+                "Daily limit of " + limit.dailyMax().toPlainString() + " reached, please try again later");
+      case VELOCITY:
+        return refused(transactionType, "velocity", "Too many transactions, please try again in a minute");
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public void release(long walletId, TransactionType transactionType, BigDecimal amount) {
+    release(walletId, transactionType, amount, LocalDateTime.now());
+  }
+
+  @Override
+  public void release(long walletId, TransactionType transactionType, BigDecimal amount, LocalDateTime acquiredAt) {
+    Limits limit = transactionType == null ? null : limits.get(transactionType);
+    if (limit == null || amount == null || acquiredAt == null || !limit.windowed()) {
+      return;
+    }
+    windows.release(WalletLimits.key(walletId, transactionType.ordinal()), minor(amount),
+            acquiredAt.toEpochSecond(ZoneOffset.UTC), now());
+  }
+
+  @Scheduled(fixedDelayString = "${limits.sweep-ms:600000}", initialDelayString = "${limits.sweep-ms:600000}")
+  public void sweep() {
+    int removed = windows.sweep(now());
+    log.debug("Swept {} idle limit windows, {} remain", removed, windows.size());
+  }
+
+  private String refused(TransactionType transactionType, String reason, String message) {
+    meterRegistry.counter("wallet.limits.refused", "type", transactionType.name(), "reason", reason).increment();
+    return message;
+  }
+
+  private static TransactionType type(String name) {
+    try {
+      return TransactionType.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  // Kobo, rounded up so a fraction of a kobo is never let through; amounts too large for a long saturate
+  private static long minor(BigDecimal amount) {
+    BigDecimal minor = amount.movePointRight(2).setScale(0, RoundingMode.UP);
+    return minor.compareTo(BigDecimal.valueOf(Long.MAX_VALUE / 2)) > 0 ? Long.MAX_VALUE / 2 : minor.longValue();
+  }
+
+  private static long now() {
+    return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static long seconds(Timestamp timestamp) {
+    return timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private record Limits(BigDecimal perTransactionMax, BigDecimal dailyMax, int perMinute) {
+    boolean windowed() {
+      return dailyMax.signum() > 0 || perMinute > 0;
+    }
+  }
+}
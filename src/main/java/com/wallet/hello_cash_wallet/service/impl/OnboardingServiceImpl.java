@@ -0,0 +1,328 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.hello_cash_wallet.entities.UserEntity;
+import com.wallet.hello_cash_wallet.entities.Wallet;
+import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
+import com.wallet.hello_cash_wallet.payload.response.OnboardingFailure;
+import com.wallet.hello_cash_wallet.payload.response.OnboardingSummary;
+import com.wallet.hello_cash_wallet.repository.UserEntityRepository;
+import com.wallet.hello_cash_wallet.service.OnboardingService;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+// Streams a CSV or JSON-lines file of registrations in chunks. Each chunk is parsed and validated in parallel,
+// checked against existing BVNs and phone numbers with one query each, then written in one transaction so
+// Hibernate batches the user, wallet and outbox inserts. Welcome SMS go through the outbox. A bad row is
+// reported and skipped; if a chunk fails to save, its rows are retried one at a time to isolate the culprit.
+@Service
+@Slf4j
+public class OnboardingServiceImpl implements OnboardingService {
+
+  private static final String[] CSV_COLUMNS = {"fullName", "dateOfBirth", "bvn", "phoneNumber", "pin"};
+
+  private final UserEntityRepository userRepository;
+  private final SmsOutboxService smsOutboxService;
+  private final AccountNumberAllocator accountNumberAllocator;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final ForkJoinPool validationPool;
+  private final int chunkSize;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public OnboardingServiceImpl(UserEntityRepository userRepository, SmsOutboxService smsOutboxService,
+                               AccountNumberAllocator accountNumberAllocator, ObjectMapper objectMapper,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${onboarding.import.chunk-size:1000}") int chunkSize,
+                               @Value("${onboarding.import.parallelism:4}") int parallelism) {
+    this.userRepository = userRepository;
+    this.smsOutboxService = smsOutboxService;
+    this.accountNumberAllocator = accountNumberAllocator;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = transactionTemplate;
+    this.chunkSize = chunkSize;
+    this.validationPool = new ForkJoinPool(parallelism);
+  }
+
+  @Override
+  public OnboardingSummary importUsers(InputStream input, String format, Consumer<OnboardingFailure> failures) throws IOException {
+    boolean csv = !"jsonl".equalsIgnoreCase(format);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    long lineNumber = 0;
+    int[] columns = null;
+    if (csv) {
+      String header = reader.readLine();
+      lineNumber++;
+      columns = header == null ? null : columnIndexes(header);
+      if (columns == null) {
+        failures.accept(new OnboardingFailure(1, "CSV header must contain " + String.join(",", CSV_COLUMNS)));
+        return new OnboardingSummary(0, 0, 0);
+      }
+    }
+
+    Set<String> seenBvns = new HashSet<>();
+    Set<String> seenPhoneNumbers = new HashSet<>();
+    long total = 0;
+    long imported = 0;
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      chunk.add(new Row(lineNumber, line));
+      total++;
+      if (chunk.size() == chunkSize) {
+        imported += importChunk(chunk, columns, seenBvns, seenPhoneNumbers, failures);
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+    if (!chunk.isEmpty()) {
+      imported += importChunk(chunk, columns, seenBvns, seenPhoneNumbers, failures);
+    }
+    log.info("Bulk onboarding finished: {} rows, {} imported, {} failed", total, imported, total - imported);
+    return new OnboardingSummary(total, imported, total - imported);
+  }
+
+  private int importChunk(List<Row> rows, int[] columns, Set<String> seenBvns, Set<String> seenPhoneNumbers,
+                          Consumer<OnboardingFailure> failures) {
+    List<Candidate> parsed = validationPool.submit(() -> rows.parallelStream()
+            .map(row -> parse(row, columns))
+            .toList()).join();
+
+    List<Candidate> valid = new ArrayList<>(parsed.size());
+    List<String> bvns = new ArrayList<>(parsed.size());
+    List<String> phoneNumbers = new ArrayList<>(parsed.size());
+    for (Candidate candidate : parsed) {
+      if (candidate.error() != null) {
+        failures.accept(new OnboardingFailure(candidate.row(), candidate.error()));
+      } else if (!seenBvns.add(candidate.request().getBvn())) {
+        failures.accept(new OnboardingFailure(candidate.row(), "Duplicate BVN in file"));
+      } else if (!seenPhoneNumbers.add(candidate.request().getPhoneNumber())) {
+        failures.accept(new OnboardingFailure(candidate.row(), "Duplicate phone number in file"));
+      } else {
+        valid.add(candidate);
+        bvns.add(candidate.request().getBvn());
+        phoneNumbers.add(candidate.request().getPhoneNumber());
+      }
+    }
+    if (valid.isEmpty()) {
+      return 0;
+    }
+
+    Set<String> existingBvns = new HashSet<>(userRepository.findExistingBvns(bvns));
+    Set<String> existingPhoneNumbers = new HashSet<>(userRepository.findExistingPhoneNumbers(phoneNumbers));
+    List<Candidate> fresh = new ArrayList<>(valid.size());
+    for (Candidate candidate : valid) {
+      if (existingBvns.contains(candidate.request().getBvn())) {
+        failures.accept(new OnboardingFailure(candidate.row(), "BVN is already registered"));
+      } else if (existingPhoneNumbers.contains(candidate.request().getPhoneNumber())) {
+        failures.accept(new OnboardingFailure(candidate.row(), "Phone number is already registered"));
+      } else {
+        fresh.add(candidate);
+      }
+    }
+    if (fresh.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      persist(fresh);
+      return fresh.size();
+    } catch (Exception e) {
+      log.warn("Bulk onboarding chunk starting at row {} failed, retrying row by row: {}", fresh.get(0).row(), e.getMessage());
+    }
+    int imported = 0;
+    for (Candidate candidate : fresh) {
+      try {
+        persist(List.of(candidate));
+        imported++;
+      } catch (Exception e) {
+        failures.accept(new OnboardingFailure(candidate.row(), "Could not be saved"));
+      }
+    }
+    return imported;
+  }
+
+  private void persist(List<Candidate> candidates) {
+    transactionTemplate.executeWithoutResult(status -> {
+      for (Candidate candidate : candidates) {
+        RegistrationRequest request = candidate.request();
+        UserEntity user = UserEntity.builder()
+                .fullName(request.getFullName())
+                .dateOfBirth(request.getDateOfBirth())
+                .bvn(request.getBvn())
+                .phoneNumber(request.getPhoneNumber())
+                .build();
+        user.setPin(request.getPin());
+        Wallet wallet = Wallet.builder()
+                .user(user)
+                .accountName(user.getFullName())
+                .balance(BigDecimal.ZERO)
+                .virtualAccountNumber(accountNumberAllocator.nextAccountNumber())
+                .build();
+        entityManager.persist(user);
+        entityManager.persist(wallet);
+
+        String message = "Welcome " + wallet.getAccountName() + "! Your account has been created successfully. " +
+                "Account Number: " + wallet.getVirtualAccountNumber();
+        smsOutboxService.queueSms(request.getPhoneNumber(), message);
+      }
+      entityManager.flush();
+      entityManager.clear();
+    });
+  }
+
+  private Candidate parse(Row row, int[] columns) {
+    RegistrationRequest request;
+    try {
+      if (columns == null) {
+        request = objectMapper.readValue(row.line(), RegistrationRequest.class);
+      } else {
+        List<String> fields = splitCsv(row.line());
+        if (fields.size() <= max(columns)) {
+          return Candidate.invalid(row.lineNumber(), "Missing columns");
+        }
+        request = new RegistrationRequest();
+        request.setFullName(fields.get(columns[0]).trim());
+        request.setDateOfBirth(LocalDate.parse(fields.get(columns[1]).trim()));
+        request.setBvn(fields.get(columns[2]).trim());
+        request.setPhoneNumber(fields.get(columns[3]).trim());
+        request.setPin(fields.get(columns[4]).trim());
+      }
+    } catch (DateTimeParseException e) {
+      return Candidate.invalid(row.lineNumber(), "Invalid date of birth, expected YYYY-MM-DD");
+    } catch (Exception e) {
+      return Candidate.invalid(row.lineNumber(), "Unreadable row");
+    }
+
+    String error = validate(request);
+    return error == null ? new Candidate(row.lineNumber(), request, null) : Candidate.invalid(row.lineNumber(), error);
+  }
+
+  private static String validate(RegistrationRequest request) {
+    if (request.getFullName() == null || request.getFullName().isBlank()) {
+      return "Full name is required";
+    }
+    if (request.getDateOfBirth() == null || request.getDateOfBirth().isAfter(LocalDate.now())) {
+      return "Invalid date of birth";
+    }
+    if (!isDigits(request.getBvn(), 11, 11)) {
+      return "Invalid BVN, expected 11 digits";
+    }
+    if (!isDigits(request.getPhoneNumber(), 10, 15)) {
+      return "Invalid phone number, expected 10 to 15 digits";
+    }
+    if (!isDigits(request.getPin(), 4, 4)) {
+      return "Invalid PIN, expected 4 digits";
+    }
+    return null;
+  }
+
+  private static boolean isDigits(String value, int minLength, int maxLength) {
+    if (value == null || value.length() < minLength || value.length() > maxLength) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Positions of CSV_COLUMNS in the header, or null if any is missing
+  private static int[] columnIndexes(String header) {
+    List<String> names = splitCsv(header);
+    int[] columns = new int[CSV_COLUMNS.length];
+    for (int i = 0; i < CSV_COLUMNS.length; i++) {
+      columns[i] = -1;
+      for (int j = 0; j < names.size(); j++) {
+        if (names.get(j).trim().equalsIgnoreCase(CSV_COLUMNS[i])) {
+          columns[i] = j;
+          break;
+        }
+      }
+      if (columns[i] < 0) {
+        return null;
+      }
+    }
+    return columns;
+  }
+
+  private static int max(int[] values) {
+    int max = 0;
+    for (int value : values) {
+      max = Math.max(max, value);
+    }
+    return max;
+  }
+
+  // Splits one CSV line, honouring double-quoted fields and "" escapes
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>(CSV_COLUMNS.length);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    validationPool.shutdown();
+  }
+
+  private record Row(long lineNumber, String line) {
+  }
+
+  private record Candidate(long row, RegistrationRequest request, String error) {
+    static Candidate invalid(long row, String error) {
+      return new Candidate(row, null, error);
+    }
+  }
+}
@@ -1,19 +1,35 @@
 package com.wallet.hello_cash_wallet.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.exception.InvalidAccountException;
+import com.wallet.hello_cash_wallet.exception.ServiceUnavailableException;
 import com.wallet.hello_cash_wallet.payload.request.Bank;
+import com.wallet.hello_cash_wallet.payload.request.PayoutInstruction;
 import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
 import com.wallet.hello_cash_wallet.payload.response.BankResponse;
+import com.wallet.hello_cash_wallet.payload.response.PayoutResult;
 import com.wallet.hello_cash_wallet.service.PayStackService;
+import com.wallet.hello_cash_wallet.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -26,48 +42,107 @@ public class PayStackServiceImpl implements PayStackService {
   private String payStackApiUrl;
 
   private final RestTemplate restTemplate;
+  private final AccountResolutionCache accountResolutionCache;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final CircuitBreaker resolveBreaker;
+  private final CircuitBreaker banksBreaker;
+  private final CircuitBreaker transferBreaker;
+  private final MeterRegistry meterRegistry;
 
-  public PayStackServiceImpl(RestTemplate restTemplate) {
+  public PayStackServiceImpl(RestTemplate restTemplate, AccountResolutionCache accountResolutionCache, MeterRegistry meterRegistry,
+                             @Value("${paystack.breaker.failure-threshold:5}") int failureThreshold,
+                             @Value("${paystack.breaker.open-ms:30000}") long openMillis,
+                             @Value("${paystack.bulkhead.max-concurrent:20}") int maxConcurrentCalls,
+                             @Value("${paystack.bulkhead.max-wait-ms:0}") long bulkheadWaitMillis) {
     this.restTemplate = restTemplate;
+    this.accountResolutionCache = accountResolutionCache;
+    this.meterRegistry = meterRegistry;
+    // An unresolvable account is a normal answer from a healthy PayStack, not a provider failure
+    this.resolveBreaker = new CircuitBreaker("paystack.bank.resolve", failureThreshold, openMillis,
+            maxConcurrentCalls, bulkheadWaitMillis, e -> e instanceof InvalidAccountException, meterRegistry);
+    this.banksBreaker = new CircuitBreaker("paystack.bank", failureThreshold, openMillis,
+            maxConcurrentCalls, bulkheadWaitMillis, e -> false, meterRegistry);
+    this.transferBreaker = new CircuitBreaker("paystack.transfer", failureThreshold, openMillis,
+            maxConcurrentCalls, bulkheadWaitMillis, e -> false, meterRegistry);
   }
 
   @Override
   public AccountInfo validateAccount(String accountNumber, String bankCode) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    AccountResolutionCache.Resolution cached = accountResolutionCache.get(accountNumber, bankCode);
+    if (cached != null) {
+      if (!cached.isValid()) {
+        stop(sample, "paystack.account.resolve", "cache", "invalid");
+        throw new InvalidAccountException(cached.invalidReason());
+      }
+      stop(sample, "paystack.account.resolve", "cache", "valid");
+      return AccountResolutionCache.copy(cached.accountInfo());
+    }
+
+    try {
+      AccountInfo accountInfo = resolveBreaker.execute(() -> resolveAccount(accountNumber, bankCode));
+      accountResolutionCache.putResolved(accountNumber, bankCode, accountInfo);
+      stop(sample, "paystack.account.resolve", "provider", "valid");
+      return accountInfo;
+    } catch (InvalidAccountException e) {
+      accountResolutionCache.putInvalid(accountNumber, bankCode, e.getMessage());
+      stop(sample, "paystack.account.resolve", "provider", "invalid");
+      throw e;
+    } catch (ServiceUnavailableException e) {
+      stop(sample, "paystack.account.resolve", "provider", "unavailable");
+      log.warn("Skipping account validation: {}", e.getMessage());
+      throw e;
+    } catch (Exception e) {
+      stop(sample, "paystack.account.resolve", "provider", "error");
+      log.error("Error validating account: {}", e.getMessage(), e);
+      throw new RuntimeException("Error validating account", e);
+    }
+  }
+
+  private AccountInfo resolveAccount(String accountNumber, String bankCode) {
     String url = payStackApiUrl + "/bank/resolve?account_number=" + accountNumber + "&bank_code=" + bankCode;
     HttpHeaders headers = new HttpHeaders();
     headers.set("Authorization", "Bearer " + payStackApiKey);
     HttpEntity<String> entity = new HttpEntity<>(headers);
 
+    ResponseEntity<String> response;
     try {
-      ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-      log.info("PayStack API response: {}", response.getBody());
-
-      ObjectMapper mapper = new ObjectMapper();
-      JsonNode root = mapper.readTree(response.getBody());
-
-      if (root.path("status").asBoolean() && root.has("data")) {
-        JsonNode data = root.path("data");
-        String accountName = data.path("account_name").asText(null);
-        String accountNumberResponse = data.path("account_number").asText(null);
-        String bankCodeResponse = bankCode;
-
-        if (accountName != null && accountNumberResponse != null) {
-          AccountInfo accountInfo = new AccountInfo();
-          accountInfo.setAccountName(accountName);
-          accountInfo.setAccountNumber(accountNumberResponse);
-          accountInfo.setBankCode(bankCodeResponse);
-          return accountInfo;
-        } else {
-          log.error("Account name or number is null in the response from PayStack: {}", response.getBody());
-          throw new RuntimeException("Invalid account details in response from PayStack");
-        }
+      response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    } catch (HttpClientErrorException e) {
+      // PayStack answers 422 (or 400/404) when the account cannot be resolved at that bank
+      if (e.getStatusCode().value() == 400 || e.getStatusCode().value() == 404 || e.getStatusCode().value() == 422) {
+        log.warn("PayStack could not resolve account {} at bank {}: {}", accountNumber, bankCode, e.getResponseBodyAsString());
+        throw new InvalidAccountException("Could not resolve account " + accountNumber + " at bank " + bankCode);
+      }
+      throw e;
+    }
+    log.info("PayStack API response: {}", response.getBody());
+
+    JsonNode root;
+    try {
+      root = objectMapper.readTree(response.getBody());
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Unreadable response from PayStack", e);
+    }
+
+    if (root.path("status").asBoolean() && root.has("data")) {
+      JsonNode data = root.path("data");
+      String accountName = data.path("account_name").asText(null);
+      String accountNumberResponse = data.path("account_number").asText(null);
+
+      if (accountName != null && accountNumberResponse != null) {
+        AccountInfo accountInfo = new AccountInfo();
+        accountInfo.setAccountName(accountName);
+        accountInfo.setAccountNumber(accountNumberResponse);
+        accountInfo.setBankCode(bankCode);
+        return accountInfo;
       } else {
-        log.error("Invalid response from PayStack: {}", response.getBody());
-        throw new RuntimeException("Invalid response from PayStack");
+        log.error("Account name or number is null in the response from PayStack: {}", response.getBody());
+        throw new InvalidAccountException("Invalid account details in response from PayStack");
       }
-    } catch (Exception e) {
-      log.error("Error validating account: {}", e.getMessage(), e);
-      throw new RuntimeException("Error validating account", e);
+    } else {
+      log.error("Invalid response from PayStack: {}", response.getBody());
+      throw new InvalidAccountException("Invalid response from PayStack");
     }
   }
 
@@ -78,26 +153,210 @@ public class PayStackServiceImpl implements PayStackService {
     headers.set("Authorization", "Bearer " + payStackApiKey);
     HttpEntity<String> entity = new HttpEntity<>(headers);
 
+    Timer.Sample sample = Timer.start(meterRegistry);
     try {
-      ResponseEntity<BankResponse> response = restTemplate.exchange(url, HttpMethod.GET, entity, BankResponse.class);
+      ResponseEntity<BankResponse> response = banksBreaker.execute(
+              () -> restTemplate.exchange(url, HttpMethod.GET, entity, BankResponse.class));
       if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+        stop(sample, "paystack.banks.fetch", "provider", "success");
         return response.getBody().getData();
       } else {
         log.error("Failed to retrieve banks: {}", response.getBody());
         throw new RuntimeException("Failed to retrieve banks");
       }
+    } catch (ServiceUnavailableException e) {
+      stop(sample, "paystack.banks.fetch", "provider", "unavailable");
+      throw e;
     } catch (Exception e) {
+      stop(sample, "paystack.banks.fetch", "provider", "error");
       log.error("Error retrieving banks: {}", e.getMessage(), e);
       throw new RuntimeException("Error retrieving banks", e);
     }
   }
 
   @Override
-  public boolean isValidBankCode(String bankCode) {
-    List<Bank> banks = getBanks();
-    return banks.stream().anyMatch(bank -> bank.getCode().equals(bankCode));
+  public List<PayoutResult> payout(List<PayoutInstruction> instructions) {
+    return transferBreaker.execute(() -> {
+      Map<String, String> recipientCodes = createRecipients(instructions);
+
+      ObjectNode body = objectMapper.createObjectNode();
+      body.put("currency", "NGN");
+      body.put("source", "balance");
+      ArrayNode transfers = body.putArray("transfers");
+      List<PayoutResult> results = new ArrayList<>(instructions.size());
+      for (PayoutInstruction instruction : instructions) {
+        String recipientCode = recipientCodes.get(recipientKey(instruction.getAccountNumber(), instruction.getBankCode()));
+        if (recipientCode == null) {
+          results.add(PayoutResult.builder()
+                  .reference(instruction.getReference())
+                  .status(TransactionStatus.FAILED)
+                  .message("PayStack rejected the transfer recipient")
+                  .build());
+          continue;
+        }
+        ObjectNode transfer = transfers.addObject();
+        transfer.put("amount", instruction.getAmount().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue());
+        transfer.put("reference", instruction.getReference());
+        transfer.put("recipient", recipientCode);
+        transfer.put("reason", instruction.getReason());
+      }
+      if (transfers.isEmpty()) {
+        return results;
+      }
+
+      for (JsonNode item : submitTransfers(body)) {
+        results.add(result(item));
+      }
+      return results;
+    });
   }
-}
 
+  @Override
+  public PayoutResult verify(String reference) {
+    return transferBreaker.execute(() -> verifyTransfer(reference));
+  }
 
+  // A reference PayStack already holds makes it refuse the whole bulk request. Those transfers are looked up instead,
+  // and the ones it does not know are sent again; a second refusal is left to the caller.
+  private List<JsonNode> submitTransfers(ObjectNode body) {
+    try {
+      List<JsonNode> items = new ArrayList<>();
+      post("/transfer/bulk", body).path("data").forEach(items::add);
+      return items;
+    } catch (RuntimeException e) {
+      if (!isDuplicateReference(e)) {
+        throw e;
+      }
+    }
 
+    List<JsonNode> items = new ArrayList<>();
+    ArrayNode unknown = objectMapper.createArrayNode();
+    for (JsonNode transfer : body.path("transfers")) {
+      String reference = transfer.path("reference").asText();
+      JsonNode known = fetchTransfer(reference);
+      if (known != null) {
+        items.add(known);
+      } else {
+        unknown.add(transfer);
+      }
+    }
+    log.warn("PayStack already had {} of {} transfers in the batch, resending {}",
+            items.size(), body.path("transfers").size(), unknown.size());
+    if (!unknown.isEmpty()) {
+      ObjectNode resend = body.deepCopy();
+      resend.set("transfers", unknown);
+      post("/transfer/bulk", resend).path("data").forEach(items::add);
+    }
+    return items;
+  }
+
+  private static boolean isDuplicateReference(RuntimeException e) {
+    String detail = e instanceof HttpClientErrorException clientError
+            ? clientError.getResponseBodyAsString() : String.valueOf(e.getMessage());
+    return detail.toLowerCase(Locale.ROOT).contains("duplicate");
+  }
+
+  private PayoutResult verifyTransfer(String reference) {
+    JsonNode transfer = fetchTransfer(reference);
+    return transfer == null ? null : result(transfer);
+  }
+
+  // The transfer PayStack holds under our reference, or null when it has none
+  private JsonNode fetchTransfer(String reference) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set("Authorization", "Bearer " + payStackApiKey);
+    ResponseEntity<String> response;
+    try {
+      response = restTemplate.exchange(payStackApiUrl + "/transfer/verify/" + reference, HttpMethod.GET,
+              new HttpEntity<>(headers), String.class);
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode().value() == 400 || e.getStatusCode().value() == 404) {
+        return null;
+      }
+      throw e;
+    }
+    try {
+      JsonNode root = objectMapper.readTree(response.getBody());
+      if (!root.path("status").asBoolean() || !root.path("data").isObject()) {
+        return null;
+      }
+      return root.path("data");
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Unreadable response from PayStack /transfer/verify", e);
+    }
+  }
+
+  private static PayoutResult result(JsonNode transfer) {
+    String status = transfer.path("status").asText("");
+    return PayoutResult.builder()
+            .reference(transfer.path("reference").asText(null))
+            .transferCode(transfer.path("transfer_code").asText(null))
+            .status(transferStatus(status))
+            .message(status)
+            .build();
+  }
+
+  // Only a completed transfer is a success. pending, queued, received, otp and the like are still in PayStack's hands.
+  private static TransactionStatus transferStatus(String status) {
+    switch (status.toLowerCase(Locale.ROOT)) {
+      case "success":
+        return TransactionStatus.SUCCESS;
+      case "failed":
+      case "reversed":
+      case "abandoned":
+      case "rejected":
+        return TransactionStatus.FAILED;
+      default:
+        return TransactionStatus.SUBMITTED;
+    }
+  }
+
+  private Map<String, String> createRecipients(List<PayoutInstruction> instructions) {
+    ObjectNode body = objectMapper.createObjectNode();
+    ArrayNode batch = body.putArray("batch");
+    for (PayoutInstruction instruction : instructions) {
+      ObjectNode recipient = batch.addObject();
+      recipient.put("type", "nuban");
+      recipient.put("name", instruction.getAccountName());
+      recipient.put("account_number", instruction.getAccountNumber());
+      recipient.put("bank_code", instruction.getBankCode());
+      recipient.put("currency", "NGN");
+    }
+
+    Map<String, String> recipientCodes = new HashMap<>();
+    for (JsonNode created : post("/transferrecipient/bulk", body).path("data").path("success")) {
+      JsonNode details = created.path("details");
+      recipientCodes.put(recipientKey(details.path("account_number").asText(), details.path("bank_code").asText()),
+              created.path("recipient_code").asText());
+    }
+    return recipientCodes;
+  }
+
+  private JsonNode post(String path, JsonNode body) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set("Authorization", "Bearer " + payStackApiKey);
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> response = restTemplate.exchange(payStackApiUrl + path, HttpMethod.POST,
+            new HttpEntity<>(body.toString(), headers), String.class);
+    try {
+      JsonNode root = objectMapper.readTree(response.getBody());
+      if (!root.path("status").asBoolean()) {
+        throw new RuntimeException("PayStack " + path + " failed: " + root.path("message").asText());
+      }
+      return root;
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Unreadable response from PayStack " + path, e);
+    }
+  }
+
+  private static String recipientKey(String accountNumber, String bankCode) {
+    return accountNumber + ':' + bankCode;
+  }
+
+  private void stop(Timer.Sample sample, String name, String source, String outcome) {
+    sample.stop(Timer.builder(name)
+            .tag("source", source)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+  }
+}
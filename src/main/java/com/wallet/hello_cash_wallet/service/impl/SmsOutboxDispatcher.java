@@ -0,0 +1,119 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.entities.SmsOutbox;
+import com.wallet.hello_cash_wallet.enums.OutboxStatus;
+import com.wallet.hello_cash_wallet.repository.SmsOutboxRepository;
+import com.wallet.hello_cash_wallet.service.TwilioService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class SmsOutboxDispatcher {
+
+  private final SmsOutboxRepository smsOutboxRepository;
+  private final TwilioService twilioService;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService workers;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final long backoffMillis;
+  private final long maxBackoffMillis;
+  private final long leaseMillis;
+
+  public SmsOutboxDispatcher(SmsOutboxRepository smsOutboxRepository, TwilioService twilioService,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${sms.outbox.workers:4}") int workerCount,
+                             @Value("${sms.outbox.batch-size:100}") int batchSize,
+                             @Value("${sms.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${sms.outbox.backoff-ms:2000}") long backoffMillis,
+                             @Value("${sms.outbox.max-backoff-ms:900000}") long maxBackoffMillis,
+                             @Value("${sms.outbox.lease-ms:60000}") long leaseMillis) {
+    this.smsOutboxRepository = smsOutboxRepository;
+    this.twilioService = twilioService;
+    this.transactionTemplate = transactionTemplate;
+    this.workers = Executors.newFixedThreadPool(workerCount);
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.backoffMillis = backoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.leaseMillis = leaseMillis;
+  }
+
+  @Scheduled(fixedDelayString = "${sms.outbox.poll-ms:1000}")
+  public void dispatch() {
+    List<SmsOutbox> batch;
+    do {
+      batch = claimBatch();
+      List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+      for (SmsOutbox sms : batch) {
+        sends.add(CompletableFuture.runAsync(() -> deliver(sms), workers));
+      }
+      CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+    } while (batch.size() == batchSize);
+  }
+
+  // Claiming happens in its own short transaction; the row locks are released before Twilio is called
+  private List<SmsOutbox> claimBatch() {
+    return transactionTemplate.execute(status -> {
+      LocalDateTime now = LocalDateTime.now();
+      List<SmsOutbox> due = smsOutboxRepository.findDueForUpdate(now, batchSize);
+      LocalDateTime leaseExpiry = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+      for (SmsOutbox sms : due) {
+        sms.setStatus(OutboxStatus.SENDING);
+        sms.setNextAttemptAt(leaseExpiry);
+      }
+      return due;
+    });
+  }
+
+  private void deliver(SmsOutbox sms) {
+    int attempts = sms.getAttempts() + 1;
+    String error;
+    try {
+      if (twilioService.sendSms(sms.getPhoneNumber(), sms.getMessage())) {
+        updateDelivery(sms.getId(), OutboxStatus.DELIVERED, attempts, LocalDateTime.now(), null);
+        return;
+      }
+      error = "Rejected by Twilio";
+    } catch (Exception e) {
+      error = e.getMessage();
+    }
+
+    if (attempts >= maxAttempts) {
+      log.error("Giving up on SMS {} to {} after {} attempts: {}", sms.getId(), sms.getPhoneNumber(), attempts, error);
+      updateDelivery(sms.getId(), OutboxStatus.FAILED, attempts, LocalDateTime.now(), error);
+    } else {
+      long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+      delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+      log.warn("SMS {} to {} failed (attempt {}), retrying in {} ms: {}", sms.getId(), sms.getPhoneNumber(), attempts, delay, error);
+      updateDelivery(sms.getId(), OutboxStatus.PENDING, attempts,
+              LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delay)), error);
+    }
+  }
+
+  private void updateDelivery(Long id, OutboxStatus status, int attempts, LocalDateTime nextAttemptAt, String error) {
+    String lastError = error != null && error.length() > 255 ? error.substring(0, 255) : error;
+    transactionTemplate.executeWithoutResult(tx ->
+            smsOutboxRepository.updateDelivery(id, status, attempts, nextAttemptAt, lastError, LocalDateTime.now()));
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    workers.shutdown();
+    workers.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,35 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.entities.SmsOutbox;
+import com.wallet.hello_cash_wallet.enums.OutboxStatus;
+import com.wallet.hello_cash_wallet.repository.SmsOutboxRepository;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class SmsOutboxServiceImpl implements SmsOutboxService {
+  private final SmsOutboxRepository smsOutboxRepository;
+
+  // Joins the caller's transaction, so the message is only sent if the business change commits
+  @Override
+  public void queueSms(String toPhoneNumber, String message) {
+    SmsOutbox sms = SmsOutbox.builder()
+            .phoneNumber(toPhoneNumber)
+            .message(message)
+            .status(OutboxStatus.PENDING)
+            .nextAttemptAt(LocalDateTime.now())
+            .build();
+    smsOutboxRepository.save(sms);
+  }
+
+  @Override
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void queueSmsInNewTransaction(String toPhoneNumber, String message) {
+    queueSms(toPhoneNumber, message);
+  }
+}
@@ -0,0 +1,326 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.hello_cash_wallet.exception.AccountNotFoundException;
+import com.wallet.hello_cash_wallet.repository.WalletOwnerView;
+import com.wallet.hello_cash_wallet.repository.WalletRepository;
+import com.wallet.hello_cash_wallet.service.StatementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+// Streams a wallet's journal for a date range straight from a server-side cursor to the response. The Postgres
+// driver only uses a cursor inside a transaction with a fetch size set, so the query runs in a read-only
+// transaction and reads fetchSize rows per round trip. Each row is written as it is read: numbers and
+// timestamps are copied as the text Postgres sends, so no entity, BigDecimal or row object is built and memory
+// stays flat however long the statement is.
+// Statements read transactions_with_archive, so months moved to the archive are still included.
+// The opening balance is the running balance of the last entry before the range (wallets start at zero and
+// every change is journaled). Entries journaled before running balances were recorded have none, so then it is
+// derived from the wallet's balance less the signed entries since the start of the range; if those include entries
+// without a direction either, the balance is left out and marked unavailable rather than guessed. The closing balance
+// carries the opening one forward through the range the same way.
+@Service
+@Slf4j
+public class StatementServiceImpl implements StatementService {
+
+  private static final String OPENING_BALANCE = "select balance_after from transactions_with_archive " +
+          "where account_id = ? and created_at < ? order by created_at desc, id desc limit 1";
+
+  // One statement, so the wallet balance and the entries come from the same snapshot
+  private static final String DERIVED_OPENING_BALANCE = "select w.balance - coalesce(sum(case t.entry_type " +
+          "when 'CREDIT' then t.amount when 'DEBIT' then -t.amount end), 0) as balance, " +
+          "count(t.id) filter (where t.entry_type is null) as undirected " +
+          "from wallet w left join transactions_with_archive t on t.account_id = w.id and t.created_at >= ? " +
+          "where w.id = ? group by w.balance";
+
+  private static final String ENTRIES = "select created_at, transfer_id, entry_type, transaction_type, transfer_type, " +
+          "transaction_status, amount, balance_after, counterparty_account, counterparty_bank_code, counterparty_name, " +
+          "description from transactions_with_archive where account_id = ? and created_at >= ? and created_at < ? " +
+          "order by created_at, id";
+
+  private static final String[] COLUMNS = {"createdAt", "transferId", "entryType", "transactionType", "transferType",
+          "transactionStatus", "amount", "balanceAfter", "counterpartyAccount", "counterpartyBankCode",
+          "counterpartyName", "description"};
+
+  private static final int ENTRY_TYPE = 2;
+  // Columns holding numbers, written unquoted in JSON
+  private static final int AMOUNT = 6;
+  private static final int BALANCE_AFTER = 7;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final WalletRepository walletRepository;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ObjectMapper objectMapper;
+  private final int fetchSize;
+
+  public StatementServiceImpl(JdbcTemplate jdbcTemplate, WalletRepository walletRepository,
+                              TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                              @Value("${statement.fetch-size:1000}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.walletRepository = walletRepository;
+    this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    this.readOnlyTransaction.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.fetchSize = fetchSize;
+  }
+
+  @Override
+  public void export(String virtualAccountNumber, String pin, LocalDate from, LocalDate to, String format,
+                     OutputStream out) throws IOException {
+    boolean csv = "csv".equalsIgnoreCase(format);
+    if (!csv && !"jsonl".equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException("Unsupported format: " + format + ", expected csv or jsonl");
+    }
+    if (from == null || to == null || from.isAfter(to)) {
+      throw new IllegalArgumentException("from and to are required and from must not be after to");
+    }
+    WalletOwnerView owner = walletRepository.findOwnerByVirtualAccountNumber(virtualAccountNumber);
+    if (owner == null) {
+      throw new AccountNotFoundException("Account not found");
+    }
+    if (pin == null || !pin.equals(owner.getPin())) {
+      throw new IllegalArgumentException("Invalid Pin");
+    }
+    Long walletId = owner.getWalletId();
+    Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+    Timestamp end = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    StatementWriter statement = csv ? new CsvStatementWriter(writer) : new JsonLinesStatementWriter(writer, objectMapper);
+    try {
+      long entries = readOnlyTransaction.execute(status -> {
+        String openingBalance = openingBalance(walletId, start);
+        try {
+          statement.opening(virtualAccountNumber, from, to, openingBalance);
+          long[] count = new long[1];
+          String[] closingBalance = {openingBalance};
+          String[] values = new String[COLUMNS.length];
+          jdbcTemplate.query(connection -> {
+            PreparedStatement query = connection.prepareStatement(ENTRIES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            query.setFetchSize(fetchSize);
+            query.setLong(1, walletId);
+            query.setTimestamp(2, start);
+            query.setTimestamp(3, end);
+            return query;
+          }, (ResultSet rs) -> {
+            readRow(rs, values);
+            closingBalance[0] = runningBalance(closingBalance[0], values);
+            writeEntry(statement, values);
+            count[0]++;
+          });
+          statement.closing(closingBalance[0], count[0]);
+          return count[0];
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      log.info("Exported statement for {} from {} to {}: {} entries", virtualAccountNumber, from, to, entries);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.flush();
+  }
+
+  // null when it cannot be known
+  private String openingBalance(Long walletId, Timestamp start) {
+    List<String> opening = jdbcTemplate.queryForList(OPENING_BALANCE, String.class, walletId, start);
+    if (opening.isEmpty()) {
+      return "0";
+    }
+    if (opening.get(0) != null) {
+      return opening.get(0);
+    }
+    return jdbcTemplate.queryForObject(DERIVED_OPENING_BALANCE, (rs, rowNum) ->
+            rs.getLong("undirected") == 0 ? rs.getString("balance") : null, start, walletId);
+  }
+
+  private static String runningBalance(String previous, String[] values) {
+    if (values[BALANCE_AFTER] != null) {
+      return values[BALANCE_AFTER];
+    }
+    if (previous == null || values[AMOUNT] == null) {
+      return null;
+    }
+    if ("CREDIT".equals(values[ENTRY_TYPE])) {
+      return new BigDecimal(previous).add(new BigDecimal(values[AMOUNT])).toPlainString();
+    }
+    if ("DEBIT".equals(values[ENTRY_TYPE])) {
+      return new BigDecimal(previous).subtract(new BigDecimal(values[AMOUNT])).toPlainString();
+    }
+    return null;
+  }
+
+  private static void readRow(ResultSet rs, String[] values) throws SQLException {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = rs.getString(i + 1);
+    }
+    // Postgres sends "2024-05-01 10:00:00.123"; make it ISO-8601 like the rest of the API
+    values[0] = values[0].replace(' ', 'T');
+  }
+
+  private static void writeEntry(StatementWriter statement, String[] values) {
+    try {
+      statement.entry(values);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // balance is null when it is unavailable
+  private interface StatementWriter {
+    void opening(String virtualAccountNumber, LocalDate from, LocalDate to, String balance) throws IOException;
+
+    void entry(String[] values) throws IOException;
+
+    void closing(String balance, long entries) throws IOException;
+  }
+
+  // A header row, an "Opening balance" row, one row per entry and a "Closing balance" row, all with the same columns
+  private static final class CsvStatementWriter implements StatementWriter {
+    private final Writer writer;
+    private LocalDate to;
+
+    CsvStatementWriter(Writer writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public void opening(String virtualAccountNumber, LocalDate from, LocalDate to, String balance) throws IOException {
+      this.to = to;
+      writer.write(String.join(",", COLUMNS));
+      writer.write('\n');
+      summary(from.toString(), balance, balance == null ? "Opening balance unavailable" : "Opening balance");
+    }
+
+    @Override
+    public void entry(String[] values) throws IOException {
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        field(values[i]);
+      }
+      writer.write('\n');
+    }
+
+    @Override
+    public void closing(String balance, long entries) throws IOException {
+      summary(to.toString(), balance, balance == null ? "Closing balance unavailable" : "Closing balance");
+    }
+
+    private void summary(String date, String balance, String description) throws IOException {
+      String[] values = new String[COLUMNS.length];
+      values[0] = date;
+      values[BALANCE_AFTER] = balance;
+      values[values.length - 1] = description;
+      entry(values);
+    }
+
+    private void field(String value) throws IOException {
+      if (value == null) {
+        return;
+      }
+      boolean quote = false;
+      for (int i = 0; i < value.length() && !quote; i++) {
+        char c = value.charAt(i);
+        quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+      }
+      if (!quote) {
+        writer.write(value);
+        return;
+      }
+      writer.write('"');
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"') {
+          writer.write('"');
+        }
+        writer.write(c);
+      }
+      writer.write('"');
+    }
+  }
+
+  // An opening line, one line per entry and a closing line; the "record" field tells them apart
+  private static final class JsonLinesStatementWriter implements StatementWriter {
+    private final Writer writer;
+    private final JsonGenerator generator;
+
+    JsonLinesStatementWriter(Writer writer, ObjectMapper objectMapper) throws IOException {
+      this.writer = writer;
+      this.generator = objectMapper.getFactory().createGenerator(writer);
+      this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      this.generator.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public void opening(String virtualAccountNumber, LocalDate from, LocalDate to, String balance) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("record", "opening");
+      generator.writeStringField("virtualAccountNumber", virtualAccountNumber);
+      generator.writeStringField("from", from.toString());
+      generator.writeStringField("to", to.toString());
+      balance(balance);
+      generator.writeEndObject();
+    }
+
+    @Override
+    public void entry(String[] values) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("record", "entry");
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] == null) {
+          continue;
+        }
+        generator.writeFieldName(COLUMNS[i]);
+        if (i == AMOUNT || i == BALANCE_AFTER) {
+          generator.writeNumber(values[i]);
+        } else {
+          generator.writeString(values[i]);
+        }
+      }
+      generator.writeEndObject();
+    }
+
+    @Override
+    public void closing(String balance, long entries) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("record", "closing");
+      balance(balance);
+      generator.writeNumberField("entries", entries);
+      generator.writeEndObject();
+      generator.flush();
+      writer.write('\n');
+    }
+
+    private void balance(String balance) throws IOException {
+      generator.writeFieldName("balance");
+      if (balance == null) {
+        generator.writeNull();
+        generator.writeBooleanField("balanceAvailable", false);
+      } else {
+        generator.writeNumber(balance);
+      }
+    }
+  }
+}
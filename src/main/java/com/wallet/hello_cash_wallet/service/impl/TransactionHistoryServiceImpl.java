@@ -0,0 +1,163 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.enums.EntryType;
+import com.wallet.hello_cash_wallet.enums.TransactionStatus;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import com.wallet.hello_cash_wallet.payload.response.TransactionHistoryItem;
+import com.wallet.hello_cash_wallet.payload.response.TransactionHistoryPage;
+import com.wallet.hello_cash_wallet.repository.WalletOwnerView;
+import com.wallet.hello_cash_wallet.repository.WalletRepository;
+import com.wallet.hello_cash_wallet.service.TransactionHistoryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Keyset pagination over idx_transactions_account_created (account_id, created_at, id). Each page starts from the
+// (created_at, id) of the last row of the previous page, so Postgres seeks straight to it in the index instead of
+// skipping OFFSET rows, and a page costs the same at row ten million as at row ten. The cursor is that key,
+// base64url-encoded so clients treat it as opaque.
+// History reads transactions_with_archive, so months TransactionPartitionMaintainer has archived stay listed; every
+// month carries its own (account_id, created_at, id) index wherever it lives, and the created_at bound prunes both sides.
+@Service
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+  private static final String SELECT = "select id, transfer_id, entry_type, transaction_type, transfer_type, " +
+          "transaction_status, amount, balance_after, counterparty_account, counterparty_bank_code, counterparty_name, " +
+          "description, created_at from transactions_with_archive where account_id = ?";
+
+  private static final RowMapper<TransactionHistoryItem> ITEM = (rs, rowNum) -> TransactionHistoryItem.builder()
+          .id(rs.getLong("id"))
+          .transferId(rs.getString("transfer_id"))
+          .entryType(enumValue(EntryType.class, rs.getString("entry_type")))
+          .transactionType(enumValue(TransactionType.class, rs.getString("transaction_type")))
+          .transferType(enumValue(TransferType.class, rs.getString("transfer_type")))
+          .transactionStatus(enumValue(TransactionStatus.class, rs.getString("transaction_status")))
+          .amount(rs.getBigDecimal("amount"))
+          .balanceAfter(rs.getBigDecimal("balance_after"))
+          .counterpartyAccount(rs.getString("counterparty_account"))
+          .counterpartyBankCode(rs.getString("counterparty_bank_code"))
+          .counterpartyName(rs.getString("counterparty_name"))
+          .description(rs.getString("description"))
+          .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+          .build();
+
+  private final JdbcTemplate jdbcTemplate;
+  private final WalletRepository walletRepository;
+  private final int defaultPageSize;
+  private final int maxPageSize;
+
+  public TransactionHistoryServiceImpl(JdbcTemplate jdbcTemplate, WalletRepository walletRepository,
+                                       @Value("${transactions.history.default-page-size:50}") int defaultPageSize,
+                                       @Value("${transactions.history.max-page-size:200}") int maxPageSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.walletRepository = walletRepository;
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
+  }
+
+  @Override
+  public TransactionHistoryPage history(String virtualAccountNumber, String pin, String cursor, Integer limit,
+                                        TransactionType transactionType, TransactionStatus transactionStatus) {
+    int pageSize = limit == null ? defaultPageSize : limit;
+    if (pageSize < 1 || pageSize > maxPageSize) {
+      return rejected(400, "limit must be between 1 and " + maxPageSize);
+    }
+    Cursor after = null;
+    if (cursor != null && !cursor.isEmpty()) {
+      after = Cursor.decode(cursor);
+      if (after == null) {
+        return rejected(400, "Invalid cursor");
+      }
+    }
+    WalletOwnerView owner = walletRepository.findOwnerByVirtualAccountNumber(virtualAccountNumber);
+    if (owner == null) {
+      return rejected(404, "Account not found");
+    }
+    if (pin == null || !pin.equals(owner.getPin())) {
+      return rejected(400, "Invalid Pin");
+    }
+    Long walletId = owner.getWalletId();
+
+    StringBuilder sql = new StringBuilder(SELECT);
+    List<Object> args = new ArrayList<>(6);
+    args.add(walletId);
+    if (after != null) {
+      // A row comparison is a single index bound; the equivalent OR of two predicates is not. The plain
+      // created_at bound is redundant but lets Postgres prune the monthly partitions newer than the cursor.
+      sql.append(" and created_at <= ? and (created_at, id) < (?, ?)");
+      Timestamp createdAt = Timestamp.valueOf(after.createdAt());
+      args.add(createdAt);
+      args.add(createdAt);
+      args.add(after.id());
+    }
+    // Only the filters that are set go into the SQL, so the planner never sees "? is null or ..." predicates
+    if (transactionType != null) {
+      sql.append(" and transaction_type = ?");
+      args.add(transactionType.name());
+    }
+    if (transactionStatus != null) {
+      sql.append(" and transaction_status = ?");
+      args.add(transactionStatus.name());
+    }
+    // One extra row tells whether there is a next page without a count query
+    sql.append(" order by created_at desc, id desc limit ?");
+    args.add(pageSize + 1);
+
+    List<TransactionHistoryItem> items = jdbcTemplate.query(sql.toString(), ITEM, args.toArray());
+    String nextCursor = null;
+    if (items.size() > pageSize) {
+      items = items.subList(0, pageSize);
+      TransactionHistoryItem last = items.get(pageSize - 1);
+      nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+    }
+    return TransactionHistoryPage.builder()
+            .statusCode(200)
+            .message("Transactions retrieved")
+            .items(items)
+            .nextCursor(nextCursor)
+            .build();
+  }
+
+  private static TransactionHistoryPage rejected(int statusCode, String message) {
+    return TransactionHistoryPage.builder()
+            .statusCode(statusCode)
+            .message(message)
+            .build();
+  }
+
+  private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  private record Cursor(LocalDateTime createdAt, long id) {
+
+    String encode() {
+      return Base64.getUrlEncoder().withoutPadding()
+              .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null when the cursor was not produced by encode()
+    static Cursor decode(String cursor) {
+      try {
+        String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = key.indexOf('|');
+        if (separator < 0) {
+          return null;
+        }
+        return new Cursor(LocalDateTime.parse(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+      } catch (IllegalArgumentException | DateTimeParseException e) {
+        return null;
+      }
+    }
+  }
+}
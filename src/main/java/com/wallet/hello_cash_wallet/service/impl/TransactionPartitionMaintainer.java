@@ -0,0 +1,180 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Keeps the monthly partitions of the transactions journal ahead of the clock and moves cold months to
+// transactions_archive. Runs at startup and then periodically; an advisory lock lets one instance do the work.
+// Archiving a month is two steps so the live table is never locked while rows are scanned:
+//   1. add and validate a CHECK constraint matching the partition bounds (scans the cold partition only)
+//   2. detach it from transactions and attach it to transactions_archive in one short transaction; the
+//      validated constraint lets Postgres skip the scan it would otherwise do on attach
+// Creating and detaching a partition need an ACCESS EXCLUSIVE lock on transactions. Waiting for one behind a long
+// transaction would stall every query queued after it, so each DDL transaction sets lock_timeout and, when it gives
+// up, the work is left for the next run.
+@Component
+@Slf4j
+public class TransactionPartitionMaintainer {
+
+  private static final long LOCK_KEY = 0x7472616e73L; // "trans"
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+  private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final Pattern BOUNDS = Pattern.compile("FROM \\((.+)\\) TO \\((.+)\\)");
+
+  private static final String PARTITIONS = "select c.relname, pg_get_expr(c.relpartbound, c.oid) " +
+          "from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+          "where i.inhparent = 'transactions'::regclass order by c.relname";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int monthsAhead;
+  private final int archiveAfterMonths;
+  private final long lockTimeoutMillis;
+
+  public TransactionPartitionMaintainer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                        @Value("${transactions.partitions.months-ahead:3}") int monthsAhead,
+                                        @Value("${transactions.archive.after-months:12}") int archiveAfterMonths,
+                                        @Value("${transactions.partitions.lock-timeout-ms:2000}") long lockTimeoutMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.monthsAhead = monthsAhead;
+    this.archiveAfterMonths = archiveAfterMonths;
+    this.lockTimeoutMillis = lockTimeoutMillis;
+  }
+
+  @Scheduled(fixedDelayString = "${transactions.partitions.maintenance-ms:3600000}")
+  public void maintain() {
+    try {
+      LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+      createPartitions(thisMonth);
+      if (archiveAfterMonths > 0) {
+        archivePartitions(thisMonth.minusMonths(archiveAfterMonths).atStartOfDay());
+      }
+    } catch (CannotAcquireLockException e) {
+      log.warn("Transaction partition maintenance timed out waiting for a lock, retrying on the next run: {}",
+              e.getMessage());
+    } catch (Exception e) {
+      log.error("Transaction partition maintenance failed: {}", e.getMessage(), e);
+    }
+  }
+
+  private void createPartitions(LocalDate thisMonth) {
+    transactionTemplate.executeWithoutResult(status -> {
+      if (!tryLock()) {
+        return;
+      }
+      limitLockWait();
+      List<Partition> partitions = partitions();
+      for (int i = 0; i <= monthsAhead; i++) {
+        LocalDateTime from = thisMonth.plusMonths(i).atStartOfDay();
+        LocalDateTime to = from.plusMonths(1);
+        // transactions_legacy may already cover the first month or so
+        if (partitions.stream().anyMatch(partition -> partition.overlaps(from, to))) {
+          continue;
+        }
+        String name = "transactions_p" + from.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute("create table " + name + " partition of transactions for values from ('"
+                + from.format(TIMESTAMP) + "') to ('" + to.format(TIMESTAMP) + "')");
+        log.info("Created journal partition {} for [{}, {})", name, from, to);
+      }
+    });
+  }
+
+  private void archivePartitions(LocalDateTime cutoff) {
+    List<Partition> cold = partitions().stream()
+            .filter(partition -> partition.to() != null && !partition.to().isAfter(cutoff))
+            .toList();
+    for (Partition partition : cold) {
+      String constraint = partition.name() + "_bounds";
+      transactionTemplate.executeWithoutResult(status -> {
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from pg_constraint where conname = ?",
+                Integer.class, constraint);
+        if (existing == null || existing == 0) {
+          limitLockWait();
+          jdbcTemplate.execute("alter table " + quote(partition.name()) + " add constraint " + quote(constraint)
+                  + " check (" + partition.checkExpression() + ") not valid");
+        }
+      });
+      // Validation scans the partition under a lock that still allows reads and writes
+      transactionTemplate.executeWithoutResult(status -> {
+        limitLockWait();
+        jdbcTemplate.execute("alter table " + quote(partition.name()) + " validate constraint " + quote(constraint));
+      });
+      transactionTemplate.executeWithoutResult(status -> {
+        if (!tryLock() || !isLive(partition)) {
+          return;
+        }
+        limitLockWait();
+        jdbcTemplate.execute("alter table transactions detach partition " + quote(partition.name()));
+        jdbcTemplate.execute("alter table transactions_archive attach partition " + quote(partition.name())
+                + " " + partition.bounds());
+        log.info("Archived journal partition {} ({})", partition.name(), partition.bounds());
+      });
+    }
+  }
+
+  // Applies to the rest of the current transaction only
+  private void limitLockWait() {
+    jdbcTemplate.execute("set local lock_timeout = " + lockTimeoutMillis);
+  }
+
+  private boolean tryLock() {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY));
+  }
+
+  // Another instance may have archived it since the partition list was read
+  private boolean isLive(Partition partition) {
+    Integer attached = jdbcTemplate.queryForObject("select count(*) from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+            "where i.inhparent = 'transactions'::regclass and c.relname = ?", Integer.class, partition.name());
+    return attached != null && attached > 0;
+  }
+
+  private List<Partition> partitions() {
+    return jdbcTemplate.query(PARTITIONS, (rs, rowNum) -> Partition.of(rs.getString(1), rs.getString(2)));
+  }
+
+  private static String quote(String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  // from is null for MINVALUE and to is null for MAXVALUE
+  record Partition(String name, String bounds, LocalDateTime from, LocalDateTime to) {
+
+    static Partition of(String name, String bounds) {
+      Matcher matcher = BOUNDS.matcher(bounds);
+      if (!matcher.find()) {
+        throw new IllegalStateException("Unexpected bounds for partition " + name + ": " + bounds);
+      }
+      return new Partition(name, bounds, bound(matcher.group(1)), bound(matcher.group(2)));
+    }
+
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+      return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+    }
+
+    String checkExpression() {
+      String upper = "created_at < '" + to.format(TIMESTAMP) + "'";
+      return from == null ? upper : "created_at >= '" + from.format(TIMESTAMP) + "' and " + upper;
+    }
+
+    // Postgres prints bounds as MINVALUE, MAXVALUE or a quoted literal such as '2024-06-01 00:00:00'
+    private static LocalDateTime bound(String value) {
+      if (value.equalsIgnoreCase("MINVALUE") || value.equalsIgnoreCase("MAXVALUE")) {
+        return null;
+      }
+      return LocalDateTime.parse(value.replace("'", "").replace(' ', 'T'));
+    }
+  }
+}
@@ -1,25 +1,34 @@
 package com.wallet.hello_cash_wallet.service.impl;
 
-import com.wallet.hello_cash_wallet.entities.Transaction;
 import com.wallet.hello_cash_wallet.entities.Wallet;
-import com.wallet.hello_cash_wallet.enums.TransactionStatus;
-import com.wallet.hello_cash_wallet.enums.TransactionType;
 import com.wallet.hello_cash_wallet.enums.TransferType;
 import com.wallet.hello_cash_wallet.exception.AccountNotFoundException;
+import com.wallet.hello_cash_wallet.exception.InvalidAccountException;
+import com.wallet.hello_cash_wallet.exception.ServiceUnavailableException;
 import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
 import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
 import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
-import com.wallet.hello_cash_wallet.repository.TransactionRepository;
 import com.wallet.hello_cash_wallet.repository.UserEntityRepository;
+import com.wallet.hello_cash_wallet.repository.WalletOwnerView;
 import com.wallet.hello_cash_wallet.repository.WalletRepository;
+import com.wallet.hello_cash_wallet.service.LedgerService;
+import com.wallet.hello_cash_wallet.service.LimitsService;
 import com.wallet.hello_cash_wallet.service.PayStackService;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
 import com.wallet.hello_cash_wallet.service.TransactionService;
-import com.wallet.hello_cash_wallet.service.TwilioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -29,28 +38,47 @@ public class TransactionServiceImpl implements TransactionService {
 
   private final UserEntityRepository userEntityRepository;
   private final WalletRepository walletRepository;
-  private final TransactionRepository transactionRepository;
+  private final LedgerService ledgerService;
   private final PayStackService payStackService;
-  private final TwilioService twilioService;
+  private final BankService bankService;
+  private final SmsOutboxService smsOutboxService;
+  private final LimitsService limitsService;
+  private final MeterRegistry meterRegistry;
 
 
   public TransactionServiceImpl(UserEntityRepository userEntityRepository, WalletRepository walletRepository,
-                                TransactionRepository transactionRepository, PayStackService payStackService, TwilioService twilioService) {
+                                LedgerService ledgerService, PayStackService payStackService, BankService bankService,
+                                SmsOutboxService smsOutboxService, LimitsService limitsService,
+                                MeterRegistry meterRegistry) {
     this.userEntityRepository = userEntityRepository;
     this.walletRepository = walletRepository;
-    this.transactionRepository = transactionRepository;
+    this.ledgerService = ledgerService;
     this.payStackService = payStackService;
-    this.twilioService = twilioService;
+    this.bankService = bankService;
+    this.smsOutboxService = smsOutboxService;
+    this.limitsService = limitsService;
+    this.meterRegistry = meterRegistry;
   }
 
   @Transactional
   public TransactionsResponse performTransaction(TransactionRequest request) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    TransactionsResponse response = null;
     try {
-      Wallet wallet = walletRepository.findByVirtualAccountNumber(request.getVirtualAccountNumber());
-      if (wallet == null) {
+      response = executeTransaction(request);
+      return response;
+    } finally {
+      recordTransaction(sample, request, response);
+    }
+  }
+
+  private TransactionsResponse executeTransaction(TransactionRequest request) {
+    try {
+      WalletOwnerView owner = walletRepository.findOwnerByVirtualAccountNumber(request.getVirtualAccountNumber());
+      if (owner == null) {
         throw new AccountNotFoundException("Account not found");
       }
-      if (!request.getPin().equals(wallet.getUser().getPin())) {
+      if (!request.getPin().equals(owner.getPin())) {
         return TransactionsResponse.builder()
                 .message("Invalid Pin")
                 .statusCode(400)
@@ -61,7 +89,15 @@ public class TransactionServiceImpl implements TransactionService {
         case BUY_CARD:
         case BUY_DATA:
         case TRANSFER:
-          response = handleTransfer(request);
+          String refusal = limitsService.tryAcquire(owner.getWalletId(), request.getTransactionType(), request.getAmount());
+          if (refusal != null) {
+            return TransactionsResponse.builder()
+                    .statusCode(400)
+                    .message(refusal)
+                    .amount(request.getAmount())
+                    .build();
+          }
+          response = handleTransferWithinLimits(owner.getWalletId(), request);
           break;
         default:
           log.error("Invalid transaction type: {}", request.getTransactionType());
@@ -74,7 +110,7 @@ public class TransactionServiceImpl implements TransactionService {
       String smsMessage = "Transaction successful!\n" +
               "Amount: " + response.getAmount() + "\n" +
               "Balance: " + response.getBalance();
-      twilioService.sendSms(wallet.getUser().getPhoneNumber(), smsMessage);
+      smsOutboxService.queueSms(owner.getPhoneNumber(), smsMessage);
       return response;
     } catch (Exception e) {
       log.error("Error performing transaction: {}", e.getMessage(), e);
@@ -82,23 +118,58 @@ public class TransactionServiceImpl implements TransactionService {
     }
   }
 
+  // The limits were counted before the transfer, so they are handed back when it is refused or fails. A transfer
+  // that went through can still be rolled back at flush or commit, so that case is left to the transaction.
+  private TransactionsResponse handleTransferWithinLimits(Long walletId, TransactionRequest request) {
+    LocalDateTime acquiredAt = LocalDateTime.now();
+    TransactionsResponse response = null;
+    try {
+      response = handleTransfer(request);
+      return response;
+    } finally {
+      if (response == null || response.getStatusCode() != 200 || "Insufficient balance".equals(response.getMessage())) {
+        limitsService.release(walletId, request.getTransactionType(), request.getAmount(), acquiredAt);
+      } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+              limitsService.release(walletId, request.getTransactionType(), request.getAmount(), acquiredAt);
+            }
+          }
+        });
+      }
+    }
+  }
+
   @Transactional
   public TransactionsResponse handleTransfer (TransactionRequest request){
     try {
-      Wallet sourceWallet = walletRepository.findByVirtualAccountNumber(request.getVirtualAccountNumber());
-      if (sourceWallet == null) {
+      Long sourceId = walletRepository.findIdByVirtualAccountNumber(request.getVirtualAccountNumber());
+      if (sourceId == null) {
         log.error("Source account not found for virtual account number: {}", request.getVirtualAccountNumber());
         throw new AccountNotFoundException("Source account not found");
       }
 
-      log.info("Source Wallet before transaction: {}", sourceWallet.getBalance());
-
       if (request.getTransferType().equals(TransferType.HELLOCASH)) {
-        Wallet destinationWallet = walletRepository.findByVirtualAccountNumber(request.getDestinationAccount());
-        if (destinationWallet == null) {
+        Long destinationId = walletRepository.findIdByVirtualAccountNumber(request.getDestinationAccount());
+        if (destinationId == null) {
           log.error("Destination account not found for virtual account number: {}", request.getDestinationAccount());
           throw new AccountNotFoundException("Destination account not found");
         }
+        if (sourceId.equals(destinationId)) {
+          return TransactionsResponse.builder()
+                  .statusCode(400)
+                  .message("Source and destination accounts must be different")
+                  .amount(request.getAmount())
+                  .build();
+        }
+
+        Map<Long, Wallet> wallets = lockWallets(sourceId, destinationId);
+        Wallet sourceWallet = wallets.get(sourceId);
+        Wallet destinationWallet = wallets.get(destinationId);
+        log.info("Source Wallet before transaction: {}", sourceWallet.getBalance());
+
         if (request.getAmount().compareTo(sourceWallet.getBalance()) > 0) {
           log.error("Insufficient balance for virtual account number: {}. Transfer amount: {}, Balance: {}",
                   request.getVirtualAccountNumber(), request.getAmount(), sourceWallet.getBalance());
@@ -110,17 +181,11 @@ public class TransactionServiceImpl implements TransactionService {
                   .build();
         }
 
-        // Deduct from source account
-        sourceWallet.setBalance(sourceWallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(sourceWallet);
-        //        log.info("Source Wallet after deduction: {}", sourceWallet.getBalance());
-        saveTransaction(sourceWallet, request.getAmount(), TransactionType.TRANSFER, TransactionStatus.SUCCESS);
-
-        // Add to destination account
-        destinationWallet.setBalance(destinationWallet.getBalance().add(request.getAmount()));
-        walletRepository.save(destinationWallet);
+        // Both rows are locked, so the debit and credit are applied to the current balances
+        sourceWallet.debit(request.getAmount());
+        destinationWallet.credit(request.getAmount());
         log.info("Destination Wallet after addition: {}", destinationWallet.getBalance());
-        saveTransaction(destinationWallet, request.getAmount(), TransactionType.TRANSFER, TransactionStatus.SUCCESS);
+        ledgerService.postTransfer(sourceWallet, destinationWallet, request.getAmount(), request.getTransactionType());
 
         return TransactionsResponse.builder()
                 .statusCode(200)
@@ -129,29 +194,40 @@ public class TransactionServiceImpl implements TransactionService {
                 .balance(sourceWallet.getBalance())
                 .build();
       } else {
+        // PayStack is called before any row lock is taken so a slow provider never holds the wallet
         if (request.getBankCode() == null || request.getBankCode().isEmpty()) {
           log.error("Bank code is null or empty");
           return TransactionsResponse.builder()
                   .statusCode(400)
                   .message("Invalid bank code")
                   .amount(request.getAmount())
-                  .balance(sourceWallet.getBalance())
                   .build();
         }
 
         log.info("Bank code: {}", request.getBankCode());
 
-        if (!payStackService.isValidBankCode(request.getBankCode())) {
+        if (!bankService.isValidBankCode(request.getBankCode())) {
           log.error("Invalid bank code: {}", request.getBankCode());
           return TransactionsResponse.builder()
                   .statusCode(400)
                   .message("Invalid bank code")
                   .amount(request.getAmount())
-                  .balance(sourceWallet.getBalance())
                   .build();
         }
 
-        AccountInfo accountInfo = payStackService.validateAccount(request.getDestinationAccount(), request.getBankCode());
+        AccountInfo accountInfo;
+        try {
+          accountInfo = payStackService.validateAccount(request.getDestinationAccount(), request.getBankCode());
+        } catch (ServiceUnavailableException e) {
+          log.warn("Rejecting transfer to bank code {}: {}", request.getBankCode(), e.getMessage());
+          return TransactionsResponse.builder()
+                  .statusCode(503)
+                  .message("Bank transfers are temporarily unavailable. Please try again later.")
+                  .amount(request.getAmount())
+                  .build();
+        } catch (InvalidAccountException e) {
+          accountInfo = null;
+        }
         if (accountInfo == null || accountInfo.getAccountName() == null) {
           log.error("Invalid destination account details for account number: {} and bank code: {}",
                   request.getDestinationAccount(), request.getBankCode());
@@ -159,10 +235,12 @@ public class TransactionServiceImpl implements TransactionService {
                   .statusCode(400)
                   .message("Invalid destination account details")
                   .amount(request.getAmount())
-                  .balance(sourceWallet.getBalance())
                   .build();
         }
 
+        Wallet sourceWallet = lockWallets(sourceId).get(sourceId);
+        log.info("Source Wallet before transaction: {}", sourceWallet.getBalance());
+
         if (request.getAmount().compareTo(sourceWallet.getBalance()) > 0) {
 //                    log.error("Insufficient balance for virtual account number: {}. Transfer amount: {}, Balance: {}",
 //                            request.getVirtualAccountNumber(), request.getAmount(), sourceWallet.getBalance());
@@ -175,17 +253,17 @@ public class TransactionServiceImpl implements TransactionService {
         }
 
         // Deduct from source account
-        sourceWallet.setBalance(sourceWallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(sourceWallet);
+        sourceWallet.debit(request.getAmount());
         log.info("Source Wallet after deduction: {}", sourceWallet.getBalance());
-        saveTransaction(sourceWallet, request.getAmount(), TransactionType.TRANSFER, TransactionStatus.SUCCESS);
+        ledgerService.postInterbankDebit(sourceWallet, request.getDestinationAccount(), request.getBankCode(),
+                accountInfo.getAccountName(), request.getAmount(), request.getTransactionType());
 
-        log.info("Transferred {} to {} at bank code {}. Destination account name: {}",
+        log.info("Queued transfer of {} to {} at bank code {}. Destination account name: {}",
                 request.getAmount(), request.getDestinationAccount(), request.getBankCode(), accountInfo.getAccountName());
 
         return TransactionsResponse.builder()
                 .statusCode(200)
-                .message("Transfer successful")
+                .message("Transfer accepted and is being processed")
                 .amount(request.getAmount())
                 .balance(sourceWallet.getBalance())
                 .build();
@@ -196,20 +274,44 @@ public class TransactionServiceImpl implements TransactionService {
       throw new RuntimeException("Transfer failed", e);
     }
   }
-  private void saveTransaction (Wallet wallet, BigDecimal amount, TransactionType type, TransactionStatus status){
-    try {
-      Transaction transaction = Transaction.builder()
-              .transactionType(type)
-              .virtualAccountNumber(wallet)
-              .amount(amount)
-              .transactionStatus(status)
-              .build();
-      transactionRepository.save(transaction);
-      log.info("Transaction saved: {}", transaction);
-    } catch (Exception e) {
-      log.error("Error saving transaction: {}", e.getMessage(), e);
-      throw new RuntimeException("Transaction save failed", e);
+  // outcome is error when the transaction threw, so failures show up next to declines in the same timer
+  private void recordTransaction(Timer.Sample sample, TransactionRequest request, TransactionsResponse response) {
+    String outcome;
+    if (response == null) {
+      outcome = "error";
+    } else if (response.getStatusCode() >= 500) {
+      outcome = "unavailable";
+    } else if (response.getStatusCode() >= 400) {
+      outcome = "rejected";
+    } else if ("Insufficient balance".equals(response.getMessage())) {
+      outcome = "insufficient_balance";
+    } else {
+      outcome = "success";
+    }
+    String transactionType = request.getTransactionType() == null ? "none" : request.getTransactionType().name();
+    String transferType = request.getTransferType() == null ? "none" : request.getTransferType().name();
+    sample.stop(Timer.builder("wallet.transactions")
+            .tag("type", transactionType)
+            .tag("transfer_type", transferType)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    if ("success".equals(outcome) && response.getAmount() != null) {
+      meterRegistry.counter("wallet.transactions.amount", "type", transactionType, "transfer_type", transferType)
+              .increment(response.getAmount().doubleValue());
     }
   }
+
+  private Map<Long, Wallet> lockWallets(Long... ids) {
+    List<Wallet> locked = walletRepository.findAllByIdForUpdate(Arrays.asList(ids));
+    if (locked.size() != ids.length) {
+      throw new AccountNotFoundException("Account not found");
+    }
+    Map<Long, Wallet> wallets = new HashMap<>(ids.length * 2);
+    for (Wallet wallet : locked) {
+      wallets.put(wallet.getId(), wallet);
+    }
+    return wallets;
+  }
 }
 
+
@@ -21,6 +21,10 @@ public class TwilioConfiguration {
   @Value("${twilio.phone_number}")
   private String fromNumber;
 
+  // When set, messages are posted to this Messages API base URL instead of through the SDK, e.g. a local stand-in
+  @Value("${twilio.api.url:}")
+  private String apiUrl;
+
   @PostConstruct
   public void initTwilio() {
     Twilio.init(accountSid, authToken);
@@ -5,56 +5,89 @@ import com.twilio.exception.ApiException;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
 import com.wallet.hello_cash_wallet.service.TwilioService;
+import com.wallet.hello_cash_wallet.util.PhoneNumbers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 public class TwilioServiceImpl implements TwilioService {
   private final TwilioConfiguration twilioConfiguration;
+  private final RestTemplate restTemplate;
+  private final Timer sent;
+  private final Timer rejected;
+  private final Timer failed;
   private static final Logger logger = LoggerFactory.getLogger(TwilioServiceImpl.class);
 
 
   @Autowired
-  public TwilioServiceImpl(TwilioConfiguration twilioConfiguration) {
+  public TwilioServiceImpl(TwilioConfiguration twilioConfiguration, RestTemplate restTemplate, MeterRegistry meterRegistry) {
     this.twilioConfiguration = twilioConfiguration;
+    this.restTemplate = restTemplate;
+    this.sent = Timer.builder("twilio.sms.send").tag("outcome", "sent").register(meterRegistry);
+    this.rejected = Timer.builder("twilio.sms.send").tag("outcome", "rejected").register(meterRegistry);
+    this.failed = Timer.builder("twilio.sms.send").tag("outcome", "error").register(meterRegistry);
     Twilio.init(
             twilioConfiguration.getAccountSid(),
             twilioConfiguration.getAuthToken()
     );
   }
 
-  public void sendSms(String to, String message) {
+  public boolean sendSms(String to, String message) {
+    long start = System.nanoTime();
+    Timer outcome = failed;
     try {
-      String formattedTo = formatPhoneNumber(to);
-      Message.creator(
-              new PhoneNumber(formattedTo),
-              new PhoneNumber(twilioConfiguration.getFromNumber()),
-              message
-      ).create();
+      String formattedTo = PhoneNumbers.toE164(to);
+      if (twilioConfiguration.getApiUrl().isBlank()) {
+        Message.creator(
+                new PhoneNumber(formattedTo),
+                new PhoneNumber(twilioConfiguration.getFromNumber()),
+                message
+        ).create();
+      } else {
+        postMessage(formattedTo, message);
+      }
+      outcome = sent;
+      return true;
     } catch (ApiException e) {
+      outcome = rejected;
       log.error("Failed to send SMS to {} with Twilio: {}", to, e.getMessage());
       log.error("Exception details: ", e);
+      return false;
+    } catch (HttpStatusCodeException e) {
+      outcome = rejected;
+      log.error("Failed to send SMS to {} with Twilio: {} {}", to, e.getStatusCode(), e.getResponseBodyAsString());
+      return false;
+    } finally {
+      outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
   }
 
-  private String formatPhoneNumber(String phoneNumber) {
-    // Remove any non-digit characters
-    phoneNumber = phoneNumber.replaceAll("\\D", "");
-
-    if (phoneNumber.startsWith("234")) {
-      // If the phone number already starts with the country code, use it directly
-      return "+" + phoneNumber;
-    } else if (phoneNumber.startsWith("0")) {
-      // If the phone number starts with '0', remove the '0' and add the country code
-      return "+234" + phoneNumber.substring(1);
-    } else {
-      // Otherwise, assume it's missing the country code and add it
-      return "+234" + phoneNumber;
-    }
+  // The same Messages API call the SDK makes, sent to twilio.api.url over the shared pooled client
+  private void postMessage(String to, String message) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBasicAuth(twilioConfiguration.getAccountSid(), twilioConfiguration.getAuthToken());
+    headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+    MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+    form.add("To", to);
+    form.add("From", twilioConfiguration.getFromNumber());
+    form.add("Body", message);
+    restTemplate.postForEntity(twilioConfiguration.getApiUrl() + "/2010-04-01/Accounts/"
+            + twilioConfiguration.getAccountSid() + "/Messages.json", new HttpEntity<>(form, headers), String.class);
   }
 
 }
@@ -6,9 +6,9 @@ import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
 import com.wallet.hello_cash_wallet.payload.response.RegistrationResponse;
 import com.wallet.hello_cash_wallet.repository.UserEntityRepository;
 import com.wallet.hello_cash_wallet.repository.WalletRepository;
-import com.wallet.hello_cash_wallet.service.TwilioService;
+import com.wallet.hello_cash_wallet.service.SmsOutboxService;
 import com.wallet.hello_cash_wallet.service.UserEntityService;
-import com.wallet.hello_cash_wallet.util.AccountNumberGenerator;
+import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,10 +20,12 @@ import java.math.BigDecimal;
 public class UserEntityServiceImpl implements UserEntityService {
   private final UserEntityRepository userRepository;
   private final WalletRepository walletRepository;
-  private final TwilioService twilioService;
+  private final SmsOutboxService smsOutboxService;
+  private final AccountNumberAllocator accountNumberAllocator;
 
 
   @Override
+  @Transactional
   public RegistrationResponse createUser(RegistrationRequest request) {
     try {
       UserEntity newUser = UserEntity.builder()
@@ -40,14 +42,15 @@ public class UserEntityServiceImpl implements UserEntityService {
               .user(newUser)
               .accountName(newUser.getFullName())
               .balance(BigDecimal.ZERO) // Initial balance
-              .virtualAccountNumber(AccountNumberGenerator.generateAccountNumber())
+              .virtualAccountNumber(accountNumberAllocator.nextAccountNumber())
               .build();
 
-      walletRepository.save(newWallet);
+      // Sequence ids defer the inserts to flush; flushing here lets a duplicate BVN or account number land in the catch
+      walletRepository.saveAndFlush(newWallet);
 
       String message = "Welcome " + newWallet.getAccountName() + "! Your account has been created successfully. " +
               "Account Number: " + newWallet.getVirtualAccountNumber();
-      twilioService.sendSms(request.getPhoneNumber(), message);
+      smsOutboxService.queueSms(request.getPhoneNumber(), message);
 
       return RegistrationResponse.builder()
               .balance(newWallet.getBalance())
@@ -56,7 +59,12 @@ public class UserEntityServiceImpl implements UserEntityService {
               .build();
     } catch (Exception e) {
       log.error("Error creating user: {}", e.getMessage());
-      twilioService.sendSms(request.getPhoneNumber(), "Error creating user. Please try again later.");
+      // This transaction is rolling back, so the notice goes through the outbox in a transaction of its own
+      try {
+        smsOutboxService.queueSmsInNewTransaction(request.getPhoneNumber(), "Error creating user. Please try again later.");
+      } catch (Exception queueFailure) {
+        log.error("Could not queue the registration failure SMS: {}", queueFailure.getMessage());
+      }
       throw new RuntimeException("Error creating user", e);
     }
   }
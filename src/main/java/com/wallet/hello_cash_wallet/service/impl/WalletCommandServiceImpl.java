@@ -0,0 +1,167 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import com.wallet.hello_cash_wallet.exception.AccountNotFoundException;
+import com.wallet.hello_cash_wallet.exception.UserIdNotFoundException;
+import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
+import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
+import com.wallet.hello_cash_wallet.payload.request.WalletCommand;
+import com.wallet.hello_cash_wallet.payload.response.RegistrationResponse;
+import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
+import com.wallet.hello_cash_wallet.payload.response.WalletCommandReply;
+import com.wallet.hello_cash_wallet.service.TransactionService;
+import com.wallet.hello_cash_wallet.service.UserEntityService;
+import com.wallet.hello_cash_wallet.service.WalletCommandService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+// Executes complete commands from the JSON WebSocket protocol, so a client needs one frame per transfer,
+// purchase or registration instead of walking the text menu one prompt at a time.
+@Service
+@Slf4j
+public class WalletCommandServiceImpl implements WalletCommandService {
+
+  private final TransactionService transactionService;
+  private final UserEntityService userEntityService;
+
+  public WalletCommandServiceImpl(TransactionService transactionService, UserEntityService userEntityService) {
+    this.transactionService = transactionService;
+    this.userEntityService = userEntityService;
+  }
+
+  @Override
+  public WalletCommandReply execute(WalletCommand command) {
+    if (command.getV() == null || command.getV() != PROTOCOL_VERSION) {
+      return reply(command, 400, "Unsupported protocol version, expected v=" + PROTOCOL_VERSION);
+    }
+    if (command.getType() == null) {
+      return reply(command, 400, "Missing command type");
+    }
+    try {
+      switch (command.getType()) {
+        case "TRANSFER":
+          return transact(command, TransactionType.TRANSFER);
+        case "BUY_CARD":
+          return transact(command, TransactionType.BUY_CARD);
+        case "BUY_DATA":
+          return transact(command, TransactionType.BUY_DATA);
+        case "REGISTER":
+          return register(command);
+        default:
+          return reply(command, 400, "Unknown command type: " + command.getType());
+      }
+    } catch (Exception e) {
+      if (isAccountNotFound(e)) {
+        return reply(command, 404, "Account not found");
+      }
+      log.error("Error executing {} command {}: {}", command.getType(), command.getId(), e.getMessage(), e);
+      return reply(command, 500, "An unexpected error occurred. Please try again later.");
+    }
+  }
+
+  private WalletCommandReply transact(WalletCommand command, TransactionType transactionType) {
+    TransactionRequest request = command.getTransaction();
+    if (request == null) {
+      return reply(command, 400, "Missing transaction");
+    }
+    request.setTransactionType(transactionType);
+    String invalid = validate(request);
+    if (invalid != null) {
+      return reply(command, 400, invalid);
+    }
+    TransactionsResponse response = transactionService.performTransaction(request);
+    return WalletCommandReply.builder()
+            .v(PROTOCOL_VERSION)
+            .id(command.getId())
+            .type(command.getType())
+            .result(response)
+            .build();
+  }
+
+  private WalletCommandReply register(WalletCommand command) {
+    RegistrationRequest request = command.getRegistration();
+    if (request == null) {
+      return reply(command, 400, "Missing registration");
+    }
+    if (isBlank(request.getFullName()) || request.getDateOfBirth() == null || !isDigits(request.getBvn(), 11)
+            || !isDigits(request.getPin(), 4) || isBlank(request.getPhoneNumber())) {
+      return reply(command, 400, "fullName, dateOfBirth, an 11-digit bvn, phoneNumber and a 4-digit pin are required");
+    }
+    RegistrationResponse registration = userEntityService.createUser(request);
+    return WalletCommandReply.builder()
+            .v(PROTOCOL_VERSION)
+            .id(command.getId())
+            .type(command.getType())
+            .result(TransactionsResponse.builder()
+                    .statusCode(200)
+                    .message("User registered successfully")
+                    .balance(registration.getBalance())
+                    .build())
+            .registration(registration)
+            .build();
+  }
+
+  private static String validate(TransactionRequest request) {
+    if (isBlank(request.getVirtualAccountNumber())) {
+      return "virtualAccountNumber is required";
+    }
+    if (!isDigits(request.getPin(), 4)) {
+      return "A 4-digit pin is required";
+    }
+    if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+      return "amount must be greater than zero";
+    }
+    if (request.getTransactionType() == TransactionType.TRANSFER) {
+      if (request.getTransferType() == null) {
+        return "transferType is required";
+      }
+      if (isBlank(request.getDestinationAccount())) {
+        return "destinationAccount is required";
+      }
+      if (request.getTransferType() == TransferType.OTHERS && isBlank(request.getBankCode())) {
+        return "bankCode is required for transfers to other banks";
+      }
+    }
+    return null;
+  }
+
+  private static WalletCommandReply reply(WalletCommand command, int statusCode, String message) {
+    return WalletCommandReply.builder()
+            .v(PROTOCOL_VERSION)
+            .id(command.getId())
+            .type(command.getType())
+            .result(TransactionsResponse.builder()
+                    .statusCode(statusCode)
+                    .message(message)
+                    .build())
+            .build();
+  }
+
+  private static boolean isAccountNotFound(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof AccountNotFoundException || cause instanceof UserIdNotFoundException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  private static boolean isDigits(String value, int length) {
+    if (value == null || value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (!Character.isDigit(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,316 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import java.util.Arrays;
+
+// Sliding-window spend and count per (wallet, transaction type), kept in open-addressing tables of primitives so a
+// check is a hash probe and a few array reads with no allocation. Amounts are minor units (kobo).
+// The daily window is 24 hourly buckets (the current hour and the 23 before it) and the velocity window is 6 buckets
+// of 10 seconds, so both slide with bucket granularity. Keys hash to one of several segments, each guarded by its own
+// monitor, which keeps wallets from contending with each other.
+final class WalletLimits {
+
+  static final int HOURS = 24;
+  static final int COUNT_BUCKETS = 6;
+  static final int COUNT_BUCKET_SECONDS = 10;
+
+  enum Outcome {
+    ALLOWED,
+    DAILY_LIMIT,
+    VELOCITY
+  }
+
+  private final Segment[] segments;
+
+  WalletLimits(int segmentCount, int initialCapacityPerSegment) {
+    int count = Integer.highestOneBit(Math.max(1, segmentCount - 1) << 1);
+    segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment(initialCapacityPerSegment);
+    }
+  }
+
+  // Wallet ids start at 1, so a key is never 0, which marks an empty slot
+  static long key(long walletId, int kind) {
+    return (walletId << 3) | kind;
+  }
+
+  // Counts the transaction against both windows when it fits; a limit of 0 is unlimited
+  Outcome tryAcquire(long key, long amount, long dailyMax, int perMinuteMax, long nowSeconds) {
+    long hash = mix(key);
+    Segment segment = segment(hash);
+    synchronized (segment) {
+      int slot = segment.insert(key, hash);
+      segment.advance(slot, nowSeconds);
+      if (perMinuteMax > 0 && segment.count(slot) >= perMinuteMax) {
+        return Outcome.VELOCITY;
+      }
+      if (dailyMax > 0 && segment.spent(slot) + amount > dailyMax) {
+        return Outcome.DAILY_LIMIT;
+      }
+      segment.add(slot, amount, 1, nowSeconds);
+      return Outcome.ALLOWED;
+    }
+  }
+
+  // Takes back a transaction acquired at acquiredSeconds that did not go through. It comes off the buckets it was
+  // counted in; whatever has already slid out of a window is left alone, so an old release never eats into
+  // unrelated recent spend or counts.
+  void release(long key, long amount, long acquiredSeconds, long nowSeconds) {
+    long hash = mix(key);
+    Segment segment = segment(hash);
+    synchronized (segment) {
+      int slot = segment.find(key, hash);
+      if (slot >= 0) {
+        segment.advance(slot, nowSeconds);
+        segment.subtract(slot, amount, Math.min(acquiredSeconds, nowSeconds));
+      }
+    }
+  }
+
+  // Loads history at its own time, used when rebuilding from the journal; entries outside the windows are ignored
+  void record(long key, long amount, int count, long atSeconds) {
+    long hash = mix(key);
+    Segment segment = segment(hash);
+    synchronized (segment) {
+      int slot = segment.insert(key, hash);
+      segment.advance(slot, atSeconds);
+      segment.add(slot, amount, count, atSeconds);
+    }
+  }
+
+  long spent(long key, long nowSeconds) {
+    long hash = mix(key);
+    Segment segment = segment(hash);
+    synchronized (segment) {
+      int slot = segment.find(key, hash);
+      if (slot < 0) {
+        return 0;
+      }
+      segment.advance(slot, nowSeconds);
+      return segment.spent(slot);
+    }
+  }
+
+  int count(long key, long nowSeconds) {
+    long hash = mix(key);
+    Segment segment = segment(hash);
+    synchronized (segment) {
+      int slot = segment.find(key, hash);
+      if (slot < 0) {
+        return 0;
+      }
+      segment.advance(slot, nowSeconds);
+      return segment.count(slot);
+    }
+  }
+
+  // Drops entries with nothing left in either window and returns how many were removed
+  int sweep(long nowSeconds) {
+    int removed = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        removed += segment.sweep(nowSeconds);
+      }
+    }
+    return removed;
+  }
+
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.reset(segment.keys.length);
+      }
+    }
+  }
+
+  private Segment segment(long hash) {
+    return segments[(int) (hash >>> 40) & (segments.length - 1)];
+  }
+
+  private static long mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 29);
+  }
+
+  private static final class Segment {
+    private long[] keys;
+    private long[] hours;       // latest hour the slot's amount buckets were advanced to
+    private long[] amounts;     // HOURS buckets per slot
+    private long[] ticks;       // latest 10-second tick the slot's count buckets were advanced to
+    private int[] counts;       // COUNT_BUCKETS buckets per slot
+    private int size;
+
+    Segment(int initialCapacity) {
+      reset(Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity - 1) << 1)));
+    }
+
+    void reset(int capacity) {
+      keys = new long[capacity];
+      hours = new long[capacity];
+      amounts = new long[capacity * HOURS];
+      ticks = new long[capacity];
+      counts = new int[capacity * COUNT_BUCKETS];
+      size = 0;
+    }
+
+    int find(long key, long hash) {
+      int mask = keys.length - 1;
+      for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return i;
+        }
+        if (keys[i] == 0) {
+          return -1;
+        }
+      }
+    }
+
+    int insert(long key, long hash) {
+      int slot = find(key, hash);
+      if (slot >= 0) {
+        return slot;
+      }
+      if ((size + 1) * 10L > keys.length * 7L) {
+        resize(keys.length * 2, Long.MIN_VALUE);
+      }
+      int mask = keys.length - 1;
+      int i = (int) hash & mask;
+      while (keys[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      hours[i] = Long.MIN_VALUE;
+      ticks[i] = Long.MIN_VALUE;
+      size++;
+      return i;
+    }
+
+    // Clears the buckets that slid out of each window since the slot was last touched
+    void advance(int slot, long nowSeconds) {
+      long hour = Math.floorDiv(nowSeconds, 3600);
+      if (hour > hours[slot]) {
+        int base = slot * HOURS;
+        if (hours[slot] == Long.MIN_VALUE || hour - hours[slot] >= HOURS) {
+          Arrays.fill(amounts, base, base + HOURS, 0L);
+        } else {
+          for (long h = hours[slot] + 1; h <= hour; h++) {
+            amounts[base + (int) Math.floorMod(h, HOURS)] = 0;
+          }
+        }
+        hours[slot] = hour;
+      }
+      long tick = Math.floorDiv(nowSeconds, COUNT_BUCKET_SECONDS);
+      if (tick > ticks[slot]) {
+        int base = slot * COUNT_BUCKETS;
+        if (ticks[slot] == Long.MIN_VALUE || tick - ticks[slot] >= COUNT_BUCKETS) {
+          Arrays.fill(counts, base, base + COUNT_BUCKETS, 0);
+        } else {
+          for (long t = ticks[slot] + 1; t <= tick; t++) {
+            counts[base + (int) Math.floorMod(t, COUNT_BUCKETS)] = 0;
+          }
+        }
+        ticks[slot] = tick;
+      }
+    }
+
+    long spent(int slot) {
+      long total = 0;
+      int base = slot * HOURS;
+      for (int i = 0; i < HOURS; i++) {
+        total += amounts[base + i];
+      }
+      return total;
+    }
+
+    int count(int slot) {
+      int total = 0;
+      int base = slot * COUNT_BUCKETS;
+      for (int i = 0; i < COUNT_BUCKETS; i++) {
+        total += counts[base + i];
+      }
+      return total;
+    }
+
+    // Only buckets still inside the windows after advance are written, so stale history cannot leak in
+    void add(int slot, long amount, int count, long atSeconds) {
+      long hour = Math.floorDiv(atSeconds, 3600);
+      if (hour > hours[slot] - HOURS) {
+        amounts[slot * HOURS + (int) Math.floorMod(hour, HOURS)] += amount;
+      }
+      long tick = Math.floorDiv(atSeconds, COUNT_BUCKET_SECONDS);
+      if (tick > ticks[slot] - COUNT_BUCKETS) {
+        counts[slot * COUNT_BUCKETS + (int) Math.floorMod(tick, COUNT_BUCKETS)] += count;
+      }
+    }
+
+    // Like add, only touches buckets still inside the windows after advance
+    void subtract(int slot, long amount, long atSeconds) {
+      long hour = Math.floorDiv(atSeconds, 3600);
+      if (hour > hours[slot] - HOURS) {
+        int hourBucket = slot * HOURS + (int) Math.floorMod(hour, HOURS);
+        amounts[hourBucket] = Math.max(0, amounts[hourBucket] - amount);
+      }
+      long tick = Math.floorDiv(atSeconds, COUNT_BUCKET_SECONDS);
+      if (tick > ticks[slot] - COUNT_BUCKETS) {
+        int countBucket = slot * COUNT_BUCKETS + (int) Math.floorMod(tick, COUNT_BUCKETS);
+        counts[countBucket] = Math.max(0, counts[countBucket] - 1);
+      }
+    }
+
+    int sweep(long nowSeconds) {
+      int before = size;
+      int capacity = keys.length;
+      while (capacity > 16 && size * 10L < capacity * 2L) {
+        capacity >>= 1;
+      }
+      resize(Math.max(capacity, 16), Math.floorDiv(nowSeconds, 3600) - HOURS);
+      return before - size;
+    }
+
+    // Rehashes into a new table, keeping only slots whose amount buckets were advanced after expiredHour.
+    // Velocity buckets are always younger than the daily ones, so such a slot has nothing left in either window.
+    private void resize(int capacity, long expiredHour) {
+      long[] oldKeys = keys;
+      long[] oldHours = hours;
+      long[] oldAmounts = amounts;
+      long[] oldTicks = ticks;
+      int[] oldCounts = counts;
+      int kept = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != 0 && oldHours[i] > expiredHour) {
+          kept++;
+        }
+      }
+      while (kept * 10L > capacity * 7L) {
+        capacity <<= 1;
+      }
+      reset(capacity);
+      int mask = capacity - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] == 0 || oldHours[i] <= expiredHour) {
+          continue;
+        }
+        int j = (int) mix(oldKeys[i]) & mask;
+        while (keys[j] != 0) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        hours[j] = oldHours[i];
+        ticks[j] = oldTicks[i];
+        System.arraycopy(oldAmounts, i * HOURS, amounts, j * HOURS, HOURS);
+        System.arraycopy(oldCounts, i * COUNT_BUCKETS, counts, j * COUNT_BUCKETS, COUNT_BUCKETS);
+        size++;
+      }
+    }
+  }
+}
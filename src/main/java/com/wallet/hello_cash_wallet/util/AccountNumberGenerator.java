@@ -1,16 +1,54 @@
 package com.wallet.hello_cash_wallet.util;
 
+// Virtual account numbers are "3", an 8-digit serial and a Luhn check digit. Legacy numbers start with 244,
+// so the two ranges never overlap. Serials are handed out by AccountNumberAllocator.
 public class AccountNumberGenerator {
-  public static String generateAccountNumber() {
-    String prefix = "244";
-    int min = 1000000;
-    int max = 9999999;
+  public static final char PREFIX = '3';
+  public static final long MAX_SERIAL = 99_999_999L;
 
-    int randNumber = (int) Math.floor(Math.random() * (max - min + 1) + min);
+  public static String fromSerial(long serial) {
+    if (serial < 0 || serial > MAX_SERIAL) {
+      throw new IllegalArgumentException("Account serial out of range: " + serial);
+    }
+    char[] digits = new char[10];
+    digits[0] = PREFIX;
+    long remaining = serial;
+    for (int i = 8; i >= 1; i--) {
+      digits[i] = (char) ('0' + remaining % 10);
+      remaining /= 10;
+    }
+    digits[9] = (char) ('0' + checkDigit(digits, 9));
+    return new String(digits);
+  }
 
-    String randomDigits = String.valueOf(randNumber);
+  public static boolean isValid(String accountNumber) {
+    if (accountNumber == null || accountNumber.length() != 10 || accountNumber.charAt(0) != PREFIX) {
+      return false;
+    }
+    char[] digits = accountNumber.toCharArray();
+    for (char digit : digits) {
+      if (digit < '0' || digit > '9') {
+        return false;
+      }
+    }
+    return checkDigit(digits, 9) == digits[9] - '0';
+  }
 
-    StringBuilder accountNumber = new StringBuilder();
-    return accountNumber.append(prefix).append(randomDigits).toString();
+  // Luhn check digit over the first length digits
+  static int checkDigit(char[] digits, int length) {
+    int sum = 0;
+    boolean doubled = true;
+    for (int i = length - 1; i >= 0; i--) {
+      int digit = digits[i] - '0';
+      if (doubled) {
+        digit *= 2;
+        if (digit > 9) {
+          digit -= 9;
+        }
+      }
+      sum += digit;
+      doubled = !doubled;
+    }
+    return (10 - sum % 10) % 10;
   }
 }
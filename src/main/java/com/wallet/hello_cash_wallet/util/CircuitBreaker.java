@@ -0,0 +1,124 @@
+package com.wallet.hello_cash_wallet.util;
+
+import com.wallet.hello_cash_wallet.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Circuit breaker with a concurrency bulkhead for one outbound endpoint. The breaker opens after
+// a run of consecutive failures, rejects calls while open, and lets a single trial call through
+// once the open period has passed. The bulkhead caps how many request threads can wait on the
+// endpoint at once; both kinds of rejection fail fast with ServiceUnavailableException.
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final long bulkheadWaitMillis;
+  private final Predicate<Throwable> ignored;
+  private final Semaphore bulkhead;
+
+  private final Counter circuitOpenRejections;
+  private final Counter bulkheadRejections;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+  private boolean trialInFlight;
+
+  public CircuitBreaker(String name, int failureThreshold, long openMillis, int maxConcurrentCalls,
+                        long bulkheadWaitMillis, Predicate<Throwable> ignored, MeterRegistry meterRegistry) {
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    this.bulkheadWaitMillis = bulkheadWaitMillis;
+    this.ignored = ignored;
+    this.bulkhead = new Semaphore(maxConcurrentCalls);
+
+    Gauge.builder("circuit.breaker.state", this, breaker -> breaker.getState().ordinal())
+            .description("0 = closed, 1 = open, 2 = half open")
+            .tag("name", name)
+            .register(meterRegistry);
+    Gauge.builder("circuit.breaker.bulkhead.available", bulkhead, Semaphore::availablePermits)
+            .tag("name", name)
+            .register(meterRegistry);
+    this.circuitOpenRejections = Counter.builder("circuit.breaker.rejections")
+            .tag("name", name).tag("reason", "circuit_open").register(meterRegistry);
+    this.bulkheadRejections = Counter.builder("circuit.breaker.rejections")
+            .tag("name", name).tag("reason", "bulkhead_full").register(meterRegistry);
+  }
+
+  public <T> T execute(Supplier<T> call) {
+    if (!tryEnter()) {
+      circuitOpenRejections.increment();
+      throw new ServiceUnavailableException(name + " is unavailable, circuit is open");
+    }
+    boolean permitted;
+    try {
+      permitted = bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      permitted = false;
+    }
+    if (!permitted) {
+      cancelTrial();
+      bulkheadRejections.increment();
+      throw new ServiceUnavailableException(name + " is busy, too many concurrent calls");
+    }
+
+    try {
+      T result = call.get();
+      release(true);
+      return result;
+    } catch (Throwable e) {
+      // Errors are caught too, so a half-open trial always ends and the breaker can recover
+      release(ignored.test(e));
+      throw e;
+    } finally {
+      bulkhead.release();
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private synchronized boolean tryEnter() {
+    if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+      state = State.HALF_OPEN;
+    }
+    if (state == State.CLOSED) {
+      return true;
+    }
+    if (state == State.HALF_OPEN && !trialInFlight) {
+      trialInFlight = true;
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized void cancelTrial() {
+    trialInFlight = false;
+  }
+
+  private synchronized void release(boolean success) {
+    if (success) {
+      consecutiveFailures = 0;
+      if (state == State.HALF_OPEN) {
+        state = State.CLOSED;
+      }
+    } else if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+    }
+    trialInFlight = false;
+  }
+}
@@ -0,0 +1,34 @@
+package com.wallet.hello_cash_wallet.util;
+
+public class PhoneNumbers {
+  // Nigerian numbers in E.164: digits only, a leading 0 replaced by 234 and 234 added when missing
+  public static String toE164(String phoneNumber) {
+    StringBuilder digits = new StringBuilder(phoneNumber.length() + 4);
+    for (int i = 0; i < phoneNumber.length(); i++) {
+      char c = phoneNumber.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits.append(c);
+      }
+    }
+
+    if (startsWith(digits, "234")) {
+      return digits.insert(0, '+').toString();
+    } else if (digits.length() > 0 && digits.charAt(0) == '0') {
+      return digits.replace(0, 1, "+234").toString();
+    } else {
+      return digits.insert(0, "+234").toString();
+    }
+  }
+
+  private static boolean startsWith(StringBuilder digits, String prefix) {
+    if (digits.length() < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (digits.charAt(i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
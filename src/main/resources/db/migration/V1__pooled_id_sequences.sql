@@ -0,0 +1,32 @@
+-- Entities share hello_cash_seq with a pooled optimizer (allocationSize = 50 in BaseClass).
+-- Journal rows are inserted by LedgerServiceImpl and take their ids from transaction_entry_seq.
+CREATE SEQUENCE IF NOT EXISTS hello_cash_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transaction_entry_seq START WITH 1 INCREMENT BY 1;
+
+-- Databases created by ddl-auto=update use identity columns. Move the sequences past the
+-- existing ids and drop the identity defaults so every id comes from the sequences above.
+DO $$
+DECLARE
+  entity_max BIGINT := 0;
+  table_max  BIGINT;
+  t          TEXT;
+BEGIN
+  FOREACH t IN ARRAY ARRAY['users', 'wallet'] LOOP
+    IF to_regclass(t) IS NOT NULL THEN
+      EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', t) INTO table_max;
+      entity_max := GREATEST(entity_max, table_max);
+      EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+    END IF;
+  END LOOP;
+  IF entity_max > 0 THEN
+    PERFORM setval('hello_cash_seq', entity_max + 50);
+  END IF;
+
+  IF to_regclass('transactions') IS NOT NULL THEN
+    SELECT COALESCE(MAX(id), 0) INTO table_max FROM transactions;
+    ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+    IF table_max > 0 THEN
+      PERFORM setval('transaction_entry_seq', table_max);
+    END IF;
+  END IF;
+END $$;
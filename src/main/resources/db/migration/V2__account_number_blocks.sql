@@ -0,0 +1,3 @@
+-- Each nextval reserves a block of 1000 account serials for one node (BLOCK_SIZE in AccountNumberAllocator).
+-- Serial 0 is never issued.
+CREATE SEQUENCE IF NOT EXISTS account_number_seq START WITH 1 INCREMENT BY 1000 MAXVALUE 99999999;
@@ -0,0 +1,8 @@
+-- Keyset pagination of wallet history seeks on (account_id, created_at, id) and reads backwards from there.
+-- On a fresh database there is no journal yet; V4 creates it with this index.
+DO $$
+BEGIN
+  IF to_regclass('transactions') IS NOT NULL THEN
+    CREATE INDEX IF NOT EXISTS idx_transactions_account_created ON transactions (account_id, created_at, id);
+  END IF;
+END $$;
@@ -0,0 +1,128 @@
+-- Flyway owns the schema from here on (ddl-auto=none). The tables below are what Hibernate created under
+-- ddl-auto=update, so existing databases keep theirs and fresh ones get the same shape.
+CREATE TABLE IF NOT EXISTS users (
+  id            BIGINT       NOT NULL PRIMARY KEY,
+  created_at    TIMESTAMP(6) NOT NULL,
+  updated_at    TIMESTAMP(6) NOT NULL,
+  full_name     VARCHAR(255),
+  bvn           VARCHAR(255) UNIQUE,
+  date_of_birth DATE,
+  pin           VARCHAR(255),
+  address       VARCHAR(255),
+  gender        SMALLINT,
+  role          SMALLINT,
+  phone_number  VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS wallet (
+  id                     BIGINT        NOT NULL PRIMARY KEY,
+  created_at             TIMESTAMP(6)  NOT NULL,
+  updated_at             TIMESTAMP(6)  NOT NULL,
+  virtual_account_number VARCHAR(255)  UNIQUE,
+  account_name           VARCHAR(255),
+  balance                NUMERIC(38, 2),
+  user_id                BIGINT        NOT NULL UNIQUE REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS sms_outbox (
+  id              BIGINT        NOT NULL PRIMARY KEY,
+  created_at      TIMESTAMP(6)  NOT NULL,
+  updated_at      TIMESTAMP(6)  NOT NULL,
+  phone_number    VARCHAR(255)  NOT NULL,
+  message         VARCHAR(1600) NOT NULL,
+  status          VARCHAR(255)  NOT NULL,
+  attempts        INTEGER       NOT NULL,
+  next_attempt_at TIMESTAMP(6)  NOT NULL,
+  last_error      VARCHAR(255)
+);
+CREATE INDEX IF NOT EXISTS idx_sms_outbox_due ON sms_outbox (status, next_attempt_at);
+
+-- The journal becomes a table partitioned by month on created_at. A partitioned table's primary key has to
+-- include the partition key, so it is (id, created_at); ids still come from transaction_entry_seq alone.
+-- An existing unpartitioned journal is not copied: it is attached as one partition, transactions_legacy,
+-- holding everything up to the start of the month after its newest row. Its indexes from V3 match the
+-- parent's and are adopted as they are; only the new primary key index is built.
+DO $$
+DECLARE
+  boundary TIMESTAMP;
+  month    TIMESTAMP;
+BEGIN
+  IF to_regclass('transactions') IS NULL THEN
+    CREATE TABLE transactions (
+      id                     BIGINT         NOT NULL,
+      created_at             TIMESTAMP(6)   NOT NULL,
+      updated_at             TIMESTAMP(6)   NOT NULL,
+      transfer_id            VARCHAR(255),
+      entry_type             VARCHAR(255),
+      transaction_type       VARCHAR(255),
+      transfer_type          VARCHAR(255),
+      transaction_status     VARCHAR(255),
+      amount                 NUMERIC(38, 2),
+      balance_after          NUMERIC(38, 2),
+      counterparty_account   VARCHAR(255),
+      counterparty_bank_code VARCHAR(255),
+      counterparty_name      VARCHAR(255),
+      provider_reference     VARCHAR(255),
+      description            VARCHAR(255),
+      account_id             BIGINT
+    ) PARTITION BY RANGE (created_at);
+    boundary := date_trunc('month', LOCALTIMESTAMP);
+  ELSIF (SELECT relkind FROM pg_class WHERE oid = 'transactions'::regclass) = 'r' THEN
+    -- A journal from before the ledger columns existed gets them first, so the parent built LIKE it has them too
+    ALTER TABLE transactions
+      ADD COLUMN IF NOT EXISTS transfer_id            VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS entry_type             VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS transaction_type       VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS transfer_type          VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS transaction_status     VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS amount                 NUMERIC(38, 2),
+      ADD COLUMN IF NOT EXISTS balance_after          NUMERIC(38, 2),
+      ADD COLUMN IF NOT EXISTS counterparty_account   VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS counterparty_bank_code VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS counterparty_name      VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS provider_reference     VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS description            VARCHAR(255),
+      ADD COLUMN IF NOT EXISTS account_id             BIGINT;
+    -- Hibernate 6 pins STRING enum columns to the values known at the time; the statuses have grown since
+    ALTER TABLE transactions
+      DROP CONSTRAINT IF EXISTS transactions_transaction_status_check,
+      DROP CONSTRAINT IF EXISTS transactions_transaction_type_check,
+      DROP CONSTRAINT IF EXISTS transactions_transfer_type_check;
+    SELECT date_trunc('month', GREATEST(MAX(created_at), LOCALTIMESTAMP)) + INTERVAL '1 month'
+      INTO boundary FROM transactions;
+    ALTER TABLE transactions RENAME TO transactions_legacy;
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'transactions_pkey') THEN
+      ALTER TABLE transactions_legacy RENAME CONSTRAINT transactions_pkey TO transactions_legacy_pkey;
+    END IF;
+    ALTER INDEX IF EXISTS idx_transactions_status RENAME TO transactions_legacy_status_idx;
+    ALTER INDEX IF EXISTS idx_transactions_account_created RENAME TO transactions_legacy_account_created_idx;
+    CREATE TABLE transactions (LIKE transactions_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+  END IF;
+
+  IF boundary IS NOT NULL THEN
+    ALTER TABLE transactions ADD CONSTRAINT transactions_pkey PRIMARY KEY (id, created_at);
+    ALTER TABLE transactions ADD CONSTRAINT fk_transactions_wallet FOREIGN KEY (account_id) REFERENCES wallet (id);
+    CREATE INDEX idx_transactions_status ON transactions (transaction_status, id);
+    CREATE INDEX idx_transactions_account_created ON transactions (account_id, created_at, id);
+    IF to_regclass('transactions_legacy') IS NOT NULL THEN
+      EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                     boundary);
+    END IF;
+    -- Three months ahead; TransactionPartitionMaintainer keeps the window rolling
+    month := boundary;
+    WHILE month < date_trunc('month', LOCALTIMESTAMP) + INTERVAL '4 months' LOOP
+      EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                     'transactions_p' || to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+      month := month + INTERVAL '1 month';
+    END LOOP;
+  END IF;
+END $$;
+
+-- Cold partitions are moved here whole by TransactionPartitionMaintainer, so the live table and its indexes
+-- only hold recent months. Statements read both through transactions_with_archive.
+CREATE TABLE IF NOT EXISTS transactions_archive (LIKE transactions INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+
+CREATE OR REPLACE VIEW transactions_with_archive AS
+  SELECT * FROM transactions
+  UNION ALL
+  SELECT * FROM transactions_archive;
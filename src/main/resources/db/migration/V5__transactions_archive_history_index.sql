@@ -0,0 +1,3 @@
+-- Wallet history reads transactions_with_archive with the same keyset as the live journal. Archived months keep
+-- the index they had as live partitions, so this only adopts those; nothing is rebuilt.
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_account_created ON transactions_archive (account_id, created_at, id);
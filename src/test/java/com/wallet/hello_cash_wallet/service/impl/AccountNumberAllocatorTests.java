@@ -0,0 +1,73 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.util.AccountNumberGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountNumberAllocatorTests {
+
+	@Test
+	void numbersAreUniqueAcrossNodesAndThreads() throws Exception {
+		// Stands in for account_number_seq shared by every node
+		AtomicLong sequence = new AtomicLong(1);
+		int nodes = 4;
+		int threadsPerNode = 8;
+		int perThread = 5_000;
+
+		List<AccountNumberAllocator> allocators = new ArrayList<>();
+		for (int i = 0; i < nodes; i++) {
+			allocators.add(new AccountNumberAllocator(() -> sequence.getAndAdd(AccountNumberAllocator.BLOCK_SIZE)));
+		}
+
+		Set<String> issued = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(nodes * threadsPerNode);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (AccountNumberAllocator allocator : allocators) {
+				for (int t = 0; t < threadsPerNode; t++) {
+					futures.add(executor.submit(() -> {
+						for (int n = 0; n < perThread; n++) {
+							String accountNumber = allocator.nextAccountNumber();
+							assertTrue(AccountNumberGenerator.isValid(accountNumber), accountNumber);
+							assertTrue(issued.add(accountNumber), "Duplicate " + accountNumber);
+						}
+					}));
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(nodes * threadsPerNode * perThread, issued.size());
+	}
+
+	@Test
+	void checkDigitCatchesSingleDigitErrorsAndNeverCollidesWithLegacyNumbers() {
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 100_000; i++) {
+			String accountNumber = AccountNumberGenerator.fromSerial(random.nextLong(AccountNumberGenerator.MAX_SERIAL + 1));
+			assertTrue(AccountNumberGenerator.isValid(accountNumber), accountNumber);
+			assertFalse(accountNumber.startsWith("244"), accountNumber);
+
+			char[] digits = accountNumber.toCharArray();
+			int position = 1 + random.nextInt(9);
+			digits[position] = (char) ('0' + (digits[position] - '0' + 1 + random.nextInt(9)) % 10);
+			assertFalse(AccountNumberGenerator.isValid(new String(digits)), new String(digits));
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import com.wallet.hello_cash_wallet.config.ConversationSessionStore;
+import com.wallet.hello_cash_wallet.enums.Channel;
+import com.wallet.hello_cash_wallet.enums.TransactionType;
+import com.wallet.hello_cash_wallet.enums.TransferType;
+import com.wallet.hello_cash_wallet.payload.request.Bank;
+import com.wallet.hello_cash_wallet.payload.request.PayoutInstruction;
+import com.wallet.hello_cash_wallet.payload.request.RegistrationRequest;
+import com.wallet.hello_cash_wallet.payload.request.TransactionRequest;
+import com.wallet.hello_cash_wallet.payload.response.AccountInfo;
+import com.wallet.hello_cash_wallet.payload.response.PayoutResult;
+import com.wallet.hello_cash_wallet.payload.response.RegistrationResponse;
+import com.wallet.hello_cash_wallet.payload.response.TransactionsResponse;
+import com.wallet.hello_cash_wallet.service.PayStackService;
+import com.wallet.hello_cash_wallet.service.TransactionService;
+import com.wallet.hello_cash_wallet.service.UserEntityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives each menu flow the way WebSocketHandler and SMSHandlerService do: WebSocket cannot identify the
+// caller and asks for the source account, SMS debits the wallet registered to the sender's phone number.
+class ConversationServiceImplTests {
+
+	private static final String CALLER = "08031234567";
+	private static final String CALLER_ACCOUNT = "1234567890";
+	private static final String SOURCE_ACCOUNT = "2345678901";
+	private static final String DESTINATION_ACCOUNT = "3456789012";
+	private static final String INVALID_SESSION = "Invalid session. Please start over by selecting an option.";
+	private static final String INVALID_ACCOUNT = "Invalid account number. Please enter a 10-digit account number:";
+	private static final String INVALID_AMOUNT = "Invalid amount. Please enter an amount such as 1500 or 1500.50:";
+	private static final String INVALID_PIN = "Invalid PIN. Please enter a 4-digit PIN:";
+
+	private RegistrationRequest registered;
+	private TransactionRequest performed;
+	private ConversationServiceImpl conversationService;
+
+	@BeforeEach
+	void setUp() {
+		registered = null;
+		performed = null;
+
+		UserEntityService userEntityService = new UserEntityService() {
+			@Override
+			public RegistrationResponse createUser(RegistrationRequest request) {
+				registered = request;
+				return RegistrationResponse.builder()
+						.fullName(request.getFullName())
+						.virtualAccountNumber(SOURCE_ACCOUNT)
+						.balance(BigDecimal.ZERO)
+						.build();
+			}
+
+			@Override
+			public String getAccountNumberByPhoneNumber(String phoneNumber) {
+				assertEquals(CALLER, phoneNumber);
+				return CALLER_ACCOUNT;
+			}
+		};
+		TransactionService transactionService = new TransactionService() {
+			@Override
+			public TransactionsResponse performTransaction(TransactionRequest request) {
+				performed = request;
+				return TransactionsResponse.builder()
+						.statusCode(200)
+						.message("Transaction successful")
+						.amount(request.getAmount())
+						.balance(new BigDecimal("8500.00"))
+						.build();
+			}
+
+			@Override
+			public TransactionsResponse handleTransfer(TransactionRequest request) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		PayStackService payStackService = new PayStackService() {
+			@Override
+			public List<Bank> getBanks() {
+				Bank bank = new Bank();
+				bank.setName("Access Bank");
+				bank.setCode("044");
+				return List.of(bank);
+			}
+
+			@Override
+			public AccountInfo validateAccount(String accountNumber, String bankCode) {
+				return AccountInfo.builder()
+						.accountName("Chidi Okeke")
+						.accountNumber(accountNumber)
+						.bankCode(bankCode)
+						.build();
+			}
+
+			@Override
+			public List<PayoutResult> payout(List<PayoutInstruction> instructions) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public PayoutResult verify(String reference) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		BankService bankService = new BankService(payStackService);
+		bankService.load();
+
+		conversationService = new ConversationServiceImpl(
+				new ConversationSessionStore(new SimpleMeterRegistry(), 900_000, 100),
+				userEntityService,
+				transactionService,
+				accountNumber -> AccountInfo.builder().accountName("Ada Obi").accountNumber(accountNumber).build(),
+				payStackService,
+				bankService);
+	}
+
+	@ParameterizedTest
+	@EnumSource(Channel.class)
+	void registrationRepromptsUntilEachAnswerIsValid(Channel channel) {
+		assertEquals("Please enter your full name:", send(channel, "1"));
+		assertEquals("Invalid name format. Please enter your full name using letters only.", send(channel, "Ada 0bi"));
+		assertEquals("Please enter your date of birth (YYYY-MM-DD):", send(channel, "Ada Obi"));
+		assertEquals("Invalid date format. Please enter your date of birth (YYYY-MM-DD):", send(channel, "17/05/1990"));
+		assertEquals("Invalid date format. Please enter your date of birth (YYYY-MM-DD):", send(channel, "2999-01-01"));
+		assertEquals("Please enter your BVN:", send(channel, "1990-05-17"));
+		assertEquals("Invalid BVN. Please enter an 11-digit BVN:", send(channel, "1234567890"));
+		assertEquals("Please enter your phone number:", send(channel, "12345678901"));
+		assertEquals("Invalid phone number. Please enter a valid phone number:", send(channel, "0803-123"));
+		assertEquals("Please create Your HelloCash PIN:", send(channel, CALLER));
+		assertEquals(INVALID_PIN, send(channel, "12345"));
+		assertNull(registered);
+
+		assertEquals("User registered successfully!\n" +
+				"Account Name: Ada Obi\n" +
+				"Account Number: " + SOURCE_ACCOUNT + "\n" +
+				"Balance: 0", send(channel, "4321"));
+		assertEquals("Ada Obi", registered.getFullName());
+		assertEquals(LocalDate.of(1990, 5, 17), registered.getDateOfBirth());
+		assertEquals("12345678901", registered.getBvn());
+		assertEquals(CALLER, registered.getPhoneNumber());
+		assertEquals("4321", registered.getPin());
+
+		// The finished conversation is gone
+		assertEquals(INVALID_SESSION, send(channel, "4321"));
+	}
+
+	@ParameterizedTest
+	@EnumSource(Channel.class)
+	void helloCashTransferRepromptsUntilEachAnswerIsValid(Channel channel) {
+		String typePrompt = "Do you want to transfer to (A) HelloCash user or (B) Other bank? Please enter A or B:";
+		assertEquals(typePrompt, send(channel, "2"));
+		assertEquals("Invalid choice. Please enter A or B:", send(channel, "C"));
+		String source = enterSource(channel, send(channel, "a"));
+
+		assertEquals(INVALID_ACCOUNT, send(channel, "34567890"));
+		assertEquals("Destination Account Name: Ada Obi\nPlease enter the amount:", send(channel, DESTINATION_ACCOUNT));
+		assertEquals(INVALID_AMOUNT, send(channel, "0"));
+		assertEquals(INVALID_AMOUNT, send(channel, "1500.505"));
+		assertEquals(INVALID_AMOUNT, send(channel, "-1500"));
+		assertEquals("Please enter your HelloCash PIN:", send(channel, "1500.50"));
+		assertEquals(INVALID_PIN, send(channel, "12a4"));
+		assertNull(performed);
+
+		assertEquals("Transaction successful\nAmount: 1500.50\nBalance: 8500.00", send(channel, "4321"));
+		assertEquals(TransactionType.TRANSFER, performed.getTransactionType());
+		assertEquals(TransferType.HELLOCASH, performed.getTransferType());
+		assertEquals(source, performed.getVirtualAccountNumber());
+		assertEquals(DESTINATION_ACCOUNT, performed.getDestinationAccount());
+		assertEquals("Ada Obi", performed.getDestinationAccountName());
+		assertEquals(new BigDecimal("1500.50"), performed.getAmount());
+		assertEquals("4321", performed.getPin());
+		assertNull(performed.getBankCode());
+		assertEquals(INVALID_SESSION, send(channel, "4321"));
+	}
+
+	@ParameterizedTest
+	@EnumSource(Channel.class)
+	void otherBankTransferRepromptsUntilEachAnswerIsValid(Channel channel) {
+		send(channel, "2");
+		String source = enterSource(channel, send(channel, "B"));
+
+		String bankPrompt = send(channel, DESTINATION_ACCOUNT);
+		assertTrue(bankPrompt.startsWith("Please enter the destination bank name:\n"), bankPrompt);
+		assertTrue(bankPrompt.contains("GTBank"), bankPrompt);
+		assertEquals("Invalid bank name. Please enter a valid bank name:", send(channel, "Nowhere Bank"));
+		assertEquals("Destination Account Name: Chidi Okeke\nPlease enter the amount:", send(channel, "access bank"));
+		assertEquals("Please enter your HelloCash PIN:", send(channel, "20000"));
+		assertEquals("Transaction successful\nAmount: 20000\nBalance: 8500.00", send(channel, "4321"));
+
+		assertEquals(TransactionType.TRANSFER, performed.getTransactionType());
+		assertEquals(TransferType.OTHERS, performed.getTransferType());
+		assertEquals(source, performed.getVirtualAccountNumber());
+		assertEquals(DESTINATION_ACCOUNT, performed.getDestinationAccount());
+		assertEquals("044", performed.getBankCode());
+		assertEquals("Chidi Okeke", performed.getDestinationAccountName());
+		assertEquals(new BigDecimal("20000"), performed.getAmount());
+	}
+
+	@ParameterizedTest
+	@EnumSource(Channel.class)
+	void airtimePurchaseRepromptsUntilEachAnswerIsValid(Channel channel) {
+		assertEquals("Please enter the phone number to buy airtime for:", send(channel, "3"));
+		assertEquals("Invalid phone number. Please enter a valid phone number:", send(channel, "080312345678901234"));
+		String reply = send(channel, "08059876543");
+		String source;
+		if (channel == Channel.SMS) {
+			source = CALLER_ACCOUNT;
+		} else {
+			assertEquals("Please enter the source account to be debited:", reply);
+			assertEquals(INVALID_ACCOUNT, send(channel, "23456789O1"));
+			source = SOURCE_ACCOUNT;
+			reply = send(channel, source);
+		}
+		assertEquals("Please enter the amount of airtime to buy:", reply);
+		assertEquals(INVALID_AMOUNT, send(channel, "500."));
+		assertEquals("Please enter your HelloCash PIN:", send(channel, "500"));
+		assertEquals("Transaction successful\nAmount: 500\nBalance: 8500.00", send(channel, "4321"));
+
+		assertEquals(TransactionType.BUY_CARD, performed.getTransactionType());
+		assertEquals("08059876543", performed.getPhoneNumber());
+		assertEquals(source, performed.getVirtualAccountNumber());
+		assertEquals(new BigDecimal("500"), performed.getAmount());
+	}
+
+	@ParameterizedTest
+	@EnumSource(Channel.class)
+	void inputWithoutAConversationIsRejected(Channel channel) {
+		assertEquals(INVALID_SESSION, send(channel, "A"));
+	}
+
+	// Answers the source account prompt on WebSocket; on SMS the flow has already skipped it
+	private String enterSource(Channel channel, String reply) {
+		if (channel == Channel.SMS) {
+			assertEquals("Please enter the destination account number:", reply);
+			return CALLER_ACCOUNT;
+		}
+		assertEquals("Please enter the source account to be debited:", reply);
+		assertEquals(INVALID_ACCOUNT, send(channel, "2345678901x"));
+		assertEquals("Please enter the destination account number:", send(channel, SOURCE_ACCOUNT));
+		return SOURCE_ACCOUNT;
+	}
+
+	private String send(Channel channel, String input) {
+		if (channel == Channel.SMS) {
+			return conversationService.handle(channel, CALLER, CALLER, input);
+		}
+		return conversationService.handle(channel, "ws-session-1", null, input);
+	}
+}
@@ -0,0 +1,95 @@
+package com.wallet.hello_cash_wallet.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WalletLimitsTests {
+
+	private static final long START = 1_700_000_000L / 3600 * 3600;
+
+	@Test
+	void dailySpendSlidesOutHourByHour() {
+		WalletLimits limits = new WalletLimits(4, 16);
+		long key = WalletLimits.key(7, 0);
+
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 600, 1000, 0, START));
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 400, 1000, 0, START + 3600));
+		assertEquals(WalletLimits.Outcome.DAILY_LIMIT, limits.tryAcquire(key, 1, 1000, 0, START + 23 * 3600));
+
+		// The first hour has left the window, the second has not
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 600, 1000, 0, START + 24 * 3600));
+		assertEquals(1000, limits.spent(key, START + 24 * 3600));
+		assertEquals(0, limits.spent(key, START + 48 * 3600));
+	}
+
+	@Test
+	void velocityCountsTheLastMinute() {
+		WalletLimits limits = new WalletLimits(4, 16);
+		long key = WalletLimits.key(7, 0);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 1, 0, 3, START + i));
+		}
+		assertEquals(WalletLimits.Outcome.VELOCITY, limits.tryAcquire(key, 1, 0, 3, START + 30));
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 1, 0, 3, START + 60));
+	}
+
+	@Test
+	void releaseHandsBackSpendAndCount() {
+		WalletLimits limits = new WalletLimits(4, 16);
+		long key = WalletLimits.key(7, 0);
+
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 1000, 1000, 1, START));
+		limits.release(key, 1000, START, START + 1);
+		assertEquals(0, limits.spent(key, START + 1));
+		assertEquals(0, limits.count(key, START + 1));
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 1000, 1000, 1, START + 2));
+	}
+
+	@Test
+	void lateReleaseOnlyTakesBackWhatIsStillInTheWindows() {
+		WalletLimits limits = new WalletLimits(4, 16);
+		long key = WalletLimits.key(7, 0);
+
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 1000, 0, 0, START));
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 300, 0, 0, START + 2 * 3600));
+		limits.release(key, 1000, START, START + 2 * 3600 + 5);
+		assertEquals(300, limits.spent(key, START + 2 * 3600 + 5));
+		assertEquals(1, limits.count(key, START + 2 * 3600 + 5));
+
+		// Past the daily window the release leaves today's spend alone
+		assertEquals(WalletLimits.Outcome.ALLOWED, limits.tryAcquire(key, 500, 0, 0, START + 30 * 3600));
+		limits.release(key, 300, START + 2 * 3600, START + 30 * 3600);
+		assertEquals(500, limits.spent(key, START + 30 * 3600));
+		assertEquals(1, limits.count(key, START + 30 * 3600));
+	}
+
+	@Test
+	void rebuiltHistoryOutsideTheWindowIsIgnored() {
+		WalletLimits limits = new WalletLimits(4, 16);
+		long key = WalletLimits.key(7, 0);
+
+		limits.record(key, 500, 0, START - 30 * 3600);
+		limits.record(key, 300, 0, START - 2 * 3600);
+		limits.record(key, 0, 2, START - 20);
+		assertEquals(300, limits.spent(key, START));
+		assertEquals(2, limits.count(key, START));
+	}
+
+	@Test
+	void sweepKeepsActiveWalletsAcrossResizes() {
+		WalletLimits limits = new WalletLimits(2, 16);
+		for (long wallet = 1; wallet <= 10_000; wallet++) {
+			limits.tryAcquire(WalletLimits.key(wallet, 0), wallet, 0, 0, wallet <= 5_000 ? START : START + 30 * 3600);
+		}
+		assertEquals(10_000, limits.size());
+
+		assertEquals(5_000, limits.sweep(START + 30 * 3600));
+		assertEquals(5_000, limits.size());
+		for (long wallet = 5_001; wallet <= 10_000; wallet++) {
+			assertEquals(wallet, limits.spent(WalletLimits.key(wallet, 0), START + 30 * 3600));
+		}
+		assertEquals(0, limits.spent(WalletLimits.key(1, 0), START + 30 * 3600));
+	}
+}